@@ -16,8 +16,8 @@ import io.bluestaggo.voxelthing.world.block.Block;
 import io.bluestaggo.voxelthing.world.entity.IPlayerController;
 import io.bluestaggo.voxelthing.world.entity.Player;
 import io.bluestaggo.voxelthing.world.generation.Structures;
-import io.bluestaggo.voxelthing.world.storage.FolderSaveHandler;
 import io.bluestaggo.voxelthing.world.storage.ISaveHandler;
+import io.bluestaggo.voxelthing.world.storage.RegionSaveHandler;
 
 import javax.swing.*;
 import java.io.*;
@@ -172,7 +172,7 @@ public class Game {
 		ISaveHandler saveHandler = null;
 		if (name != null) {
 			try {
-				saveHandler = new FolderSaveHandler(worldDir.resolve(name));
+				saveHandler = new RegionSaveHandler(worldDir.resolve(name));
 			} catch (IOException e) {
 				System.out.println("Cannot save world \"" + name + "\"! Playing without saving.");
 				e.printStackTrace();
@@ -255,6 +255,7 @@ public class Game {
 
 		if (isInWorld()) {
 			world.partialTick = partialTick;
+			world.update();
 
 			float px = (float) player.getPartialX();
 			float py = (float) player.getPartialY();
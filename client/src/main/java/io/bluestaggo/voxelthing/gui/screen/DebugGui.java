@@ -6,6 +6,7 @@ import io.bluestaggo.voxelthing.renderer.screen.Screen;
 import io.bluestaggo.voxelthing.world.Chunk;
 import io.bluestaggo.voxelthing.world.generation.Biomes;
 import io.bluestaggo.voxelthing.world.generation.WorldType;
+import io.bluestaggo.voxelthing.world.storage.ChunkSaveQueue;
 
 public class DebugGui extends GuiScreen {
 	public DebugGui(Game game) {
@@ -37,6 +38,15 @@ public class DebugGui extends GuiScreen {
 						: "N/A",
 				"Looking At", game.getBlockRaycast().getDebugText(game.world),
 				"Biome: ",game.world.genCache.getGenerationAt((int)game.player.posX / Chunk.LENGTH,(int)game.player.posZ / Chunk.LENGTH, game.world.worldType).returnStringBiome(game.player.posX, game.player.posZ),
+				"Chunks", game.isInWorld()
+						? game.world.getLoadedChunkCount() + " loaded (" + game.world.getChunkMemoryEstimate() / 1000000L + " MB)"
+						: "N/A",
+				"Gen Cache", game.isInWorld()
+						? game.world.genCache.getSize() + "/" + game.world.genCache.getCapacity() + " columns (" + Math.round(game.world.genCache.getHitRate() * 100.0) + "% hits)"
+						: "N/A",
+				"Chunk Saves", game.isInWorld() && game.world.saveHandler instanceof ChunkSaveQueue saveQueue
+						? saveQueue.getQueueDepth() + " queued (" + saveQueue.getBytesPerSecond() / 1000L + " KB/s)"
+						: "N/A",
 				"Scroll", formatDouble(game.window.getScrollX()) + ", " + formatDouble(game.window.getScrollY())
 		};
 
@@ -8,6 +8,7 @@ import io.bluestaggo.voxelthing.renderer.MainRenderer;
 import io.bluestaggo.voxelthing.renderer.draw.Quad;
 import io.bluestaggo.voxelthing.world.BlockRaycast;
 import io.bluestaggo.voxelthing.world.Direction;
+import io.bluestaggo.voxelthing.world.EditSession;
 import io.bluestaggo.voxelthing.world.block.Block;
 import io.bluestaggo.voxelthing.world.generation.blockInStructure;
 import io.bluestaggo.voxelthing.world.inventory.Hotbar;
@@ -114,7 +115,7 @@ public class IngameGui extends GuiScreen {
 		if (miningTick == 0) {
 			if (raycast.blockHit()) {
 				game.player.hotbar.onPickUp(new ItemStack(Item.blockToItem(game.world.getBlock(x, y, z)), 1)); 
-				game.world.setBlock(x, y, z, null);
+				setBlock(x, y, z, null);
 				miningTick = maxMiningTick;
 			}
 			
@@ -341,6 +342,13 @@ public class IngameGui extends GuiScreen {
 	}
 
 	
+	// Breaking and placing go through an edit session like every other block change.
+	private void setBlock(int x, int y, int z, Block block) {
+		try (EditSession session = game.world.edit()) {
+			session.setBlock(x, y, z, block);
+		}
+	}
+
 	@Override
 	protected void onMouseReleased(int button, int mx, int my) {
 		super.onMouseReleased(button, mx, my);
@@ -379,7 +387,7 @@ public class IngameGui extends GuiScreen {
 				miningTick = maxMiningTick;
 			}
 				if (!game.player.survival) {
-					game.world.setBlock(x, y, z, null);
+					setBlock(x, y, z, null);
 					if (game.structureMode) {
 
 					for (int i = 0; i < structure.size(); i++) {
@@ -408,9 +416,7 @@ public class IngameGui extends GuiScreen {
 				Block placedBlock = getPlacedBlock();
 
 				if (game.structurePaintMode) {
-					for (int i = 0; i < game.structureToPaint.getStructure().length; i++) {
-						game.world.setBlock(x - game.structureToPaint.getStructure()[i].x, y - game.structureToPaint.getStructure()[i].y + 1, z - game.structureToPaint.getStructure()[i].z, game.structureToPaint.getStructure()[i].block);
-					}
+					game.world.placeStructure(x, y + 1, z, game.structureToPaint.getTemplate());
 				}
 
 
@@ -420,7 +426,7 @@ public class IngameGui extends GuiScreen {
 					z += face.Z;
 
 					if (game.world.isAir(x, y, z)) {
-						game.world.setBlock(x, y, z, placedBlock);
+						setBlock(x, y, z, placedBlock);
 						
 						if (game.structureMode) {
 							if (firstBlock) {
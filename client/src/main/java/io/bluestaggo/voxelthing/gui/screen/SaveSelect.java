@@ -8,7 +8,7 @@ import io.bluestaggo.voxelthing.gui.control.WorldButton;
 import io.bluestaggo.voxelthing.renderer.GLState;
 import io.bluestaggo.voxelthing.renderer.MainRenderer;
 import io.bluestaggo.voxelthing.renderer.draw.Quad;
-import io.bluestaggo.voxelthing.world.storage.FolderSaveHandler;
+import io.bluestaggo.voxelthing.world.storage.RegionSaveHandler;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -43,7 +43,7 @@ public class SaveSelect extends GuiScreen {
 			worlds.filter(Files::isDirectory)
 					.map(p -> {
 						try {
-							return new FolderSaveHandler(p);
+							return new RegionSaveHandler(p);
 						} catch (IOException e) {
 							return null;
 						}
@@ -7,7 +7,7 @@ import io.bluestaggo.voxelthing.world.Chunk;
 import io.bluestaggo.voxelthing.world.Direction;
 import io.bluestaggo.voxelthing.world.IBlockAccess;
 import io.bluestaggo.voxelthing.world.block.Block;
-import io.bluestaggo.voxelthing.world.block.BlockType;
+import io.bluestaggo.voxelthing.world.block.BlockTable;
 import org.joml.Vector2i;
 import org.joml.Vector3f;
 
@@ -16,6 +16,8 @@ public class BlockRenderer {
 	private static float xOffSet = 1;
 	private static float yOffSet = 1;
 	private static float zOffSet = 1;
+	private float faceTexX;
+	private float faceTexY;
 	private final SideRenderer[] SIDE_RENDERERS = {
 			this::renderNorthFace,
 			this::renderSouthFace,
@@ -46,9 +48,9 @@ public class BlockRenderer {
 			yOffSet = 1;
 			zOffSet = 1;
 		} else {
-			xOffSet = block.type.shape().x;
-			yOffSet = block.type.shape().y;
-			zOffSet = block.type.shape().z;
+			xOffSet = BlockTable.SHAPE_X[block.runtimeId];
+			yOffSet = BlockTable.SHAPE_Y[block.runtimeId];
+			zOffSet = BlockTable.SHAPE_Z[block.runtimeId];
 		}
 		
 
@@ -65,13 +67,24 @@ public class BlockRenderer {
 		return true;
 	}
 
+	private void loadFaceTexture(Block block, Direction face, IBlockAccess blockAccess, int x, int y, int z) {
+		int id = block.runtimeId;
+		if (BlockTable.NEIGHBOUR_TEXTURE[id]) {
+			Vector2i texture = block.getTexture().get(face, blockAccess, x, y, z);
+			faceTexX = texture.x * Block.TEXTURE_WIDTH;
+			faceTexY = texture.y * Block.TEXTURE_WIDTH;
+		} else {
+			faceTexX = BlockTable.TEXTURE_X[BlockTable.SIZE * face.ordinal() + id] * Block.TEXTURE_WIDTH;
+			faceTexY = BlockTable.TEXTURE_Y[BlockTable.SIZE * face.ordinal() + id] * Block.TEXTURE_WIDTH;
+		}
+	}
+
 	private void renderNorthFace(Bindings bindings, IBlockAccess blockAccess, Block block, int x, int y, int z) {
-		Vector2i texture = block.getTexture().get(Direction.NORTH, blockAccess, x, y, z);
-		BlockType type = blockAccess.getBlock(x, y, z).type;
-		float texX = texture.x * Block.TEXTURE_WIDTH;
-		float texY = texture.y * Block.TEXTURE_WIDTH;
+		loadFaceTexture(block, Direction.NORTH, blockAccess, x, y, z);
+		float texX = faceTexX;
+		float texY = faceTexY;
 		float texXp = texX + Block.TEXTURE_WIDTH;
-		float texYp = texY +  (type == BlockType.slab ? Block.TEXTURE_WIDTH/2 : Block.TEXTURE_WIDTH);
+		float texYp = texY +  (BlockTable.SLAB[block.runtimeId] ? Block.TEXTURE_WIDTH/2 : Block.TEXTURE_WIDTH);
 		float shade = getShade(1);
 
 		bindings.addVertices(   x +  +xOffSet,  y + yOffSet,  z,  shade,  shade,  shade,  texX,   texY    );
@@ -82,12 +95,11 @@ public class BlockRenderer {
 	}
 
 	private void renderSouthFace(Bindings bindings, IBlockAccess blockAccess, Block block, int x, int y, int z) {
-		Vector2i texture = block.getTexture().get(Direction.SOUTH, blockAccess, x, y, z);
-		BlockType type = blockAccess.getBlock(x, y, z).type;
-		float texX = texture.x * Block.TEXTURE_WIDTH;
-		float texY = texture.y * Block.TEXTURE_WIDTH;
+		loadFaceTexture(block, Direction.SOUTH, blockAccess, x, y, z);
+		float texX = faceTexX;
+		float texY = faceTexY;
 		float texXp = texX + Block.TEXTURE_WIDTH;
-		float texYp = texY +  (type == BlockType.slab ? Block.TEXTURE_WIDTH/2 : Block.TEXTURE_WIDTH);
+		float texYp = texY +  (BlockTable.SLAB[block.runtimeId] ? Block.TEXTURE_WIDTH/2 : Block.TEXTURE_WIDTH);
 		float shade = getShade(3);
 
 		bindings.addVertices(   x,            y + yOffSet,  z + zOffSet,  shade,  shade,  shade,  texX,   texY    );
@@ -98,12 +110,11 @@ public class BlockRenderer {
 	}
 
 	private void renderWestFace(Bindings bindings, IBlockAccess blockAccess, Block block, int x, int y, int z) {
-		Vector2i texture = block.getTexture().get(Direction.WEST, blockAccess, x, y, z);
-		BlockType type = blockAccess.getBlock(x, y, z).type;
-		float texX = texture.x * Block.TEXTURE_WIDTH;
-		float texY = texture.y * Block.TEXTURE_WIDTH;
+		loadFaceTexture(block, Direction.WEST, blockAccess, x, y, z);
+		float texX = faceTexX;
+		float texY = faceTexY;
 		float texXp = texX + Block.TEXTURE_WIDTH;
-		float texYp = texY +  (type == BlockType.slab ? Block.TEXTURE_WIDTH/2 : Block.TEXTURE_WIDTH);
+		float texYp = texY +  (BlockTable.SLAB[block.runtimeId] ? Block.TEXTURE_WIDTH/2 : Block.TEXTURE_WIDTH);
 		float shade = getShade(2);
 
 		bindings.addVertices(   x,  y + yOffSet,  z,            shade,  shade,  shade,  texX,   texY    );
@@ -114,12 +125,11 @@ public class BlockRenderer {
 	}
 
 	private void renderEastFace(Bindings bindings, IBlockAccess blockAccess, Block block, int x, int y, int z) {
-		Vector2i texture = block.getTexture().get(Direction.EAST, blockAccess, x, y, z);
-		BlockType type = blockAccess.getBlock(x, y, z).type;
-		float texX = texture.x * Block.TEXTURE_WIDTH;
-		float texY = texture.y * Block.TEXTURE_WIDTH;
+		loadFaceTexture(block, Direction.EAST, blockAccess, x, y, z);
+		float texX = faceTexX;
+		float texY = faceTexY;
 		float texXp = texX + Block.TEXTURE_WIDTH;
-		float texYp = texY +  (type == BlockType.slab ? Block.TEXTURE_WIDTH/2 : Block.TEXTURE_WIDTH);
+		float texYp = texY +  (BlockTable.SLAB[block.runtimeId] ? Block.TEXTURE_WIDTH/2 : Block.TEXTURE_WIDTH);
 		float shade = getShade(2);
 
 		bindings.addVertices(   x + xOffSet,  y + yOffSet,  z + zOffSet,  shade,  shade,  shade,  texX,   texY    );
@@ -130,10 +140,9 @@ public class BlockRenderer {
 	}
 
 	private void renderBottomFace(Bindings bindings, IBlockAccess blockAccess, Block block, int x, int y, int z) {
-		Vector2i texture = block.getTexture().get(Direction.BOTTOM, blockAccess, x, y, z);
-		BlockType type = blockAccess.getBlock(x, y, z).type;
-		float texX = texture.x * Block.TEXTURE_WIDTH;
-		float texY = texture.y * Block.TEXTURE_WIDTH;
+		loadFaceTexture(block, Direction.BOTTOM, blockAccess, x, y, z);
+		float texX = faceTexX;
+		float texY = faceTexY;
 		float texXp = texX + Block.TEXTURE_WIDTH;
 		float texYp = texY + Block.TEXTURE_WIDTH;
 		float shade = getShade(4);
@@ -146,10 +155,9 @@ public class BlockRenderer {
 	}
 
 	private void renderTopFace(Bindings bindings, IBlockAccess blockAccess, Block block, int x, int y, int z) {
-		Vector2i texture = block.getTexture().get(Direction.TOP, blockAccess, x, y, z);
-		BlockType type = blockAccess.getBlock(x, y, z).type;
-		float texX = texture.x * Block.TEXTURE_WIDTH;
-		float texY = texture.y * Block.TEXTURE_WIDTH;
+		loadFaceTexture(block, Direction.TOP, blockAccess, x, y, z);
+		float texX = faceTexX;
+		float texY = faceTexY;
 		float texXp = texX + Block.TEXTURE_WIDTH;
 		float texYp = texY + Block.TEXTURE_WIDTH;
 		float shade = getShade(0);
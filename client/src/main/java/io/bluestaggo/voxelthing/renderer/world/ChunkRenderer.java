@@ -58,10 +58,23 @@ public class ChunkRenderer {
 		boolean wasEmpty = empty;
 
 		if (needsUpdate) {
-			empty = true;
-			Chunk chunk = world.getOrLoadChunkAt(x, y, z);
+			Chunk chunk = world.getChunkAt(x, y, z);
+			if (chunk == null) {
+				world.requestChunkAt(x, y, z);
+				return;
+			}
+
+			// All 26 neighbours, since the chunk is only decorated once they are loaded.
+			for (int dx = -1; dx <= 1; dx++) {
+				for (int dy = -1; dy <= 1; dy++) {
+					for (int dz = -1; dz <= 1; dz++) {
+						world.requestChunkAt(x + dx, y + dy, z + dz);
+					}
+				}
+			}
 
-			if (chunk == null || chunk.isEmpty()) {
+			empty = true;
+			if (chunk.isEmpty()) {
 				needsUpdate = false;
 				return;
 			}
@@ -99,7 +99,7 @@ public class WorldRenderer {
 			if (updates < maxUpdates) {
 				boolean neededUpdate = chunkRenderer.needsUpdate();
 				chunkRenderer.render();
-				if (neededUpdate) {
+				if (neededUpdate && !chunkRenderer.needsUpdate()) {
 					updates++;
 				}
 			}
@@ -173,6 +173,10 @@ public class WorldRenderer {
 			}
 		}
 
+		if (world != null) {
+			world.setLoadCenter(x, y, z, renderDistance + 1);
+		}
+
 		sortedChunkRenderers = Arrays.stream(chunkRenderers)
 				.sorted(this::compareChunks)
 				.toList();
@@ -221,7 +225,7 @@ public class WorldRenderer {
 		markChunkUpdateAt(x, y, z + 1);
 	}
 
-	private void markChunkUpdateAt(int x, int y, int z) {
+	public void markChunkUpdateAt(int x, int y, int z) {
 		if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
 			return;
 		}
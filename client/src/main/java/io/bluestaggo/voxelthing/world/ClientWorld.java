@@ -7,6 +7,7 @@ import io.bluestaggo.voxelthing.renderer.world.WorldRenderer;
 import io.bluestaggo.voxelthing.world.block.Block;
 import io.bluestaggo.voxelthing.world.storage.ISaveHandler;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -43,7 +44,12 @@ public class ClientWorld extends World {
 		item.map.put("blockArrayType", new ByteItem(1));
 		item.map.put("blocks", new ByteArrayItem(blocks));
 
-		chunkStorage.deserializeChunkAt(cx, cy, cz, item);
+		try {
+			chunkStorage.deserializeChunkAt(cx, cy, cz, item);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
 		onChunkAdded(cx, cy, cz);
 	}
 
@@ -60,4 +66,11 @@ public class ClientWorld extends World {
 		WorldRenderer worldRenderer = game.renderer.worldRenderer;
 		worldRenderer.markNeighbourChunkUpdateAt(x, y, z);
 	}
+
+	@Override
+	public void onChunkUpdate(int x, int y, int z) {
+		super.onChunkUpdate(x, y, z);
+		WorldRenderer worldRenderer = game.renderer.worldRenderer;
+		worldRenderer.markChunkUpdateAt(x, y, z);
+	}
 }
@@ -0,0 +1,98 @@
+package io.bluestaggo.pds;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Reads and writes a compound shaped like a saved chunk: a 32 KB block array, a palette of
+// 200 identifiers, each a compound of two strings, and a few scalars. The palette makes up most
+// of the items, so this mostly measures the per-item dispatch.
+// The buffer cases compare the version 1 layout with the compact one through the same path,
+// and setup prints the encoded size of each.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+	private static final int PALETTE_SIZE = 200;
+
+	private CompoundItem chunk;
+	private byte[] encoded;
+	private byte[] compact;
+	private ByteBuffer buffer;
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		Random random = new Random(1);
+		byte[] blocks = new byte[32768];
+		random.nextBytes(blocks);
+
+		ListItem palette = new ListItem();
+		for (int i = 0; i < PALETTE_SIZE; i++) {
+			CompoundItem id = new CompoundItem();
+			id.map.put("namespace", new StringItem("vt"));
+			id.map.put("name", new StringItem("block_" + i));
+			palette.list.add(id);
+		}
+
+		chunk = new CompoundItem();
+		chunk.setInt("x", 12);
+		chunk.setInt("y", -3);
+		chunk.setInt("z", 40);
+		chunk.setByte("blockArrayType", (byte) 1);
+		chunk.map.put("blockPalette", palette);
+		chunk.setByteArray("blocks", blocks);
+
+		write();
+		encoded = out.toByteArray();
+
+		CompactEncoder encoder = new CompactEncoder(chunk);
+		compact = new byte[encoder.getEncodedSize()];
+		encoder.write(ByteBuffer.wrap(compact));
+
+		buffer = ByteBuffer.allocate(Math.max(encoded.length, compact.length));
+		System.out.println("Version 1: " + encoded.length + " bytes, compact: " + compact.length + " bytes");
+	}
+
+	@Benchmark
+	public ByteArrayOutputStream write() throws IOException {
+		out.reset();
+		chunk.writeItem(new DataOutputStream(out));
+		return out;
+	}
+
+	@Benchmark
+	public StructureItem read() throws IOException {
+		return StructureItem.readItem(new DataInputStream(new ByteArrayInputStream(encoded)));
+	}
+
+	@Benchmark
+	public ByteBuffer writeBuffer() {
+		buffer.clear();
+		chunk.writeItem(buffer);
+		return buffer;
+	}
+
+	@Benchmark
+	public ByteBuffer writeCompact() {
+		buffer.clear();
+		new CompactEncoder(chunk).write(buffer);
+		return buffer;
+	}
+
+	@Benchmark
+	public StructureItem readBuffer() throws IOException {
+		return StructureItem.readItem(ByteBuffer.wrap(encoded));
+	}
+
+	@Benchmark
+	public StructureItem readCompact() throws IOException {
+		return StructureItem.readItem(ByteBuffer.wrap(compact));
+	}
+}
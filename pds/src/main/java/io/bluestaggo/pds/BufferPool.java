@@ -0,0 +1,65 @@
+package io.bluestaggo.pds;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+// Buffers kept around between encoding and decoding items, so saving or loading a chunk
+// doesn't allocate a new one every time. Acquired buffers are cleared, big-endian and have
+// their limit set to the size asked for.
+public class BufferPool {
+	public static final BufferPool HEAP = new BufferPool(false);
+	public static final BufferPool DIRECT = new BufferPool(true);
+
+	private static final int MIN_CAPACITY = 4096;
+	private static final int MAX_POOLED_CAPACITY = 4 * 1024 * 1024;
+	private static final int MAX_POOLED = 8;
+
+	private final boolean direct;
+	private final ArrayDeque<ByteBuffer> buffers = new ArrayDeque<>();
+
+	public BufferPool(boolean direct) {
+		this.direct = direct;
+	}
+
+	public ByteBuffer acquire(int size) {
+		ByteBuffer buffer = null;
+
+		synchronized (this) {
+			Iterator<ByteBuffer> iterator = buffers.iterator();
+			while (iterator.hasNext()) {
+				ByteBuffer pooled = iterator.next();
+				if (pooled.capacity() >= size) {
+					iterator.remove();
+					buffer = pooled;
+					break;
+				}
+			}
+		}
+
+		if (buffer == null) {
+			int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(size - 1, 1)) << 1);
+			if (capacity < size) {
+				capacity = size;
+			}
+			buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+		}
+
+		buffer.clear().limit(size);
+		buffer.order(ByteOrder.BIG_ENDIAN);
+		return buffer;
+	}
+
+	public void release(ByteBuffer buffer) {
+		if (buffer.capacity() > MAX_POOLED_CAPACITY || buffer.isDirect() != direct) {
+			return;
+		}
+
+		synchronized (this) {
+			if (buffers.size() < MAX_POOLED) {
+				buffers.push(buffer);
+			}
+		}
+	}
+}
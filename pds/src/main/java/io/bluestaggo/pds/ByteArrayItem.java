@@ -3,8 +3,11 @@ package io.bluestaggo.pds;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 public class ByteArrayItem extends StructureItem {
+	public static final int TYPE = 7;
+
 	public byte[] value;
 
 	public ByteArrayItem() {
@@ -24,6 +27,16 @@ public class ByteArrayItem extends StructureItem {
 		return "<" + value.length + " bytes>";
 	}
 
+	@Override
+	public int getType() {
+		return TYPE;
+	}
+
+	@Override
+	protected int getSize() {
+		return 4 + value.length;
+	}
+
 	@Override
 	protected void read(DataInputStream stream) throws IOException {
 		int length = stream.readInt();
@@ -35,4 +48,17 @@ public class ByteArrayItem extends StructureItem {
 		stream.writeInt(value.length);
 		stream.write(value);
 	}
+
+	@Override
+	protected void read(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		value = new byte[length];
+		buffer.get(value);
+	}
+
+	@Override
+	protected void write(ByteBuffer buffer) {
+		buffer.putInt(value.length);
+		buffer.put(value);
+	}
 }
@@ -3,9 +3,12 @@ package io.bluestaggo.pds;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 public class ByteItem extends StructureItem {
+	public static final int TYPE = 1;
+
 	public byte value;
 
 	public ByteItem() {
@@ -71,6 +74,16 @@ public class ByteItem extends StructureItem {
 		return value;
 	}
 
+	@Override
+	public int getType() {
+		return TYPE;
+	}
+
+	@Override
+	protected int getSize() {
+		return 1;
+	}
+
 	@Override
 	protected void read(DataInputStream stream) throws IOException {
 		value = stream.readByte();
@@ -80,4 +93,14 @@ public class ByteItem extends StructureItem {
 	protected void write(DataOutputStream stream) throws IOException {
 		stream.writeByte(value);
 	}
+
+	@Override
+	protected void read(ByteBuffer buffer) {
+		value = buffer.get();
+	}
+
+	@Override
+	protected void write(ByteBuffer buffer) {
+		buffer.put(value);
+	}
 }
@@ -0,0 +1,186 @@
+package io.bluestaggo.pds;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Encodes an item in the compact version 2 layout. It starts with MAGIC, which is never a
+// version 1 type tag, followed by a dictionary of every key and string in the item, then the item
+// itself. Compared to version 1:
+// - lengths and counts are unsigned varints
+// - short, int and long values are zig-zag varints
+// - keys and strings are varint indices into the dictionary
+// Bytes, floats, doubles and array contents are stored as before. Readers tell the versions
+// apart by the first byte, so both can be read by PdsReader, PdsView and StructureItem.readItem.
+public class CompactEncoder {
+	public static final int MAGIC = 0xF2;
+
+	private final StructureItem item;
+	private final Map<String, Integer> dictionary = new LinkedHashMap<>();
+	private int dictionarySize;
+	private final int size;
+
+	public CompactEncoder(StructureItem item) {
+		this.item = item;
+		int itemSize = getSize(item);
+		size = 1 + varIntSize(dictionary.size()) + dictionarySize + itemSize;
+	}
+
+	public int getEncodedSize() {
+		return size;
+	}
+
+	// Writes the item at the buffer's position, which needs getEncodedSize() bytes remaining.
+	public void write(ByteBuffer buffer) {
+		buffer.put((byte) MAGIC);
+		putVarInt(buffer, dictionary.size());
+		for (String string : dictionary.keySet()) {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			putVarInt(buffer, bytes.length);
+			buffer.put(bytes);
+		}
+		write(item, buffer);
+	}
+
+	private int stringIndex(String string) {
+		Integer index = dictionary.get(string);
+		if (index == null) {
+			index = dictionary.size();
+			dictionary.put(string, index);
+			int length = StructureItem.getStringSize(string) - 2;
+			dictionarySize += varIntSize(length) + length;
+		}
+		return index;
+	}
+
+	// Also adds the item's strings to the dictionary, so the index sizes are known.
+	private int getSize(StructureItem item) {
+		int size = 1;
+		switch (item.getType()) {
+			case ByteItem.TYPE -> size += 1;
+			case ShortItem.TYPE -> size += varIntSize(zigZag(((ShortItem) item).value));
+			case IntItem.TYPE -> size += varIntSize(zigZag(((IntItem) item).value));
+			case LongItem.TYPE -> size += varLongSize(zigZag(((LongItem) item).value));
+			case FloatItem.TYPE -> size += 4;
+			case DoubleItem.TYPE -> size += 8;
+			case ByteArrayItem.TYPE -> size += arraySize(((ByteArrayItem) item).value.length);
+			case ShortArrayItem.TYPE -> size += arraySize(((ShortArrayItem) item).value.length * 2);
+			case IntArrayItem.TYPE -> size += arraySize(((IntArrayItem) item).value.length * 4);
+			case LongArrayItem.TYPE -> size += arraySize(((LongArrayItem) item).value.length * 8);
+			case StringItem.TYPE -> size += varIntSize(stringIndex(((StringItem) item).value));
+			case ListItem.TYPE -> {
+				var list = ((ListItem) item).list;
+				size += varIntSize(list.size());
+				for (StructureItem element : list) {
+					size += getSize(element);
+				}
+			}
+			case CompoundItem.TYPE -> {
+				var map = ((CompoundItem) item).map;
+				size += varIntSize(map.size());
+				for (var entry : map.entrySet()) {
+					size += varIntSize(stringIndex(entry.getKey())) + getSize(entry.getValue());
+				}
+			}
+		}
+		return size;
+	}
+
+	private void write(StructureItem item, ByteBuffer buffer) {
+		buffer.put((byte) item.getType());
+		switch (item.getType()) {
+			case ByteItem.TYPE -> buffer.put(((ByteItem) item).value);
+			case ShortItem.TYPE -> putVarInt(buffer, zigZag(((ShortItem) item).value));
+			case IntItem.TYPE -> putVarInt(buffer, zigZag(((IntItem) item).value));
+			case LongItem.TYPE -> putVarLong(buffer, zigZag(((LongItem) item).value));
+			case FloatItem.TYPE -> buffer.putInt(Float.floatToIntBits(((FloatItem) item).value));
+			case DoubleItem.TYPE -> buffer.putLong(Double.doubleToLongBits(((DoubleItem) item).value));
+			case ByteArrayItem.TYPE -> {
+				byte[] value = ((ByteArrayItem) item).value;
+				putVarInt(buffer, value.length);
+				buffer.put(value);
+			}
+			case ShortArrayItem.TYPE -> {
+				short[] value = ((ShortArrayItem) item).value;
+				putVarInt(buffer, value.length * 2);
+				buffer.asShortBuffer().put(value);
+				buffer.position(buffer.position() + value.length * 2);
+			}
+			case IntArrayItem.TYPE -> {
+				int[] value = ((IntArrayItem) item).value;
+				putVarInt(buffer, value.length * 4);
+				buffer.asIntBuffer().put(value);
+				buffer.position(buffer.position() + value.length * 4);
+			}
+			case LongArrayItem.TYPE -> {
+				long[] value = ((LongArrayItem) item).value;
+				putVarInt(buffer, value.length * 8);
+				buffer.asLongBuffer().put(value);
+				buffer.position(buffer.position() + value.length * 8);
+			}
+			case StringItem.TYPE -> putVarInt(buffer, dictionary.get(((StringItem) item).value));
+			case ListItem.TYPE -> {
+				var list = ((ListItem) item).list;
+				putVarInt(buffer, list.size());
+				for (StructureItem element : list) {
+					write(element, buffer);
+				}
+			}
+			case CompoundItem.TYPE -> {
+				var map = ((CompoundItem) item).map;
+				putVarInt(buffer, map.size());
+				for (var entry : map.entrySet()) {
+					putVarInt(buffer, dictionary.get(entry.getKey()));
+					write(entry.getValue(), buffer);
+				}
+			}
+		}
+	}
+
+	private static int arraySize(int length) {
+		return varIntSize(length) + length;
+	}
+
+	static int zigZag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	static int varIntSize(int value) {
+		int size = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	static int varLongSize(long value) {
+		int size = 1;
+		while ((value & ~0x7FL) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	static void putVarInt(ByteBuffer buffer, int value) {
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) (value & 0x7F | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	static void putVarLong(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) (value & 0x7F | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+}
@@ -3,10 +3,13 @@ package io.bluestaggo.pds;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
 public class CompoundItem extends StructureItem {
+	public static final int TYPE = 13;
+
 	public final Map<String, StructureItem> map;
 
 	public CompoundItem() {
@@ -32,6 +35,20 @@ public class CompoundItem extends StructureItem {
 		return builder.toString();
 	}
 
+	@Override
+	public int getType() {
+		return TYPE;
+	}
+
+	@Override
+	protected int getSize() {
+		int size = 4;
+		for (var item : map.entrySet()) {
+			size += getStringSize(item.getKey()) + item.getValue().getEncodedSize();
+		}
+		return size;
+	}
+
 	@Override
 	protected void read(DataInputStream stream) throws IOException {
 		int length = stream.readInt();
@@ -49,6 +66,23 @@ public class CompoundItem extends StructureItem {
 		}
 	}
 
+	@Override
+	protected void read(ByteBuffer buffer) throws IOException {
+		int length = buffer.getInt();
+		for (int i = 0; i < length; i++) {
+			map.put(readString(buffer), readItem(buffer));
+		}
+	}
+
+	@Override
+	protected void write(ByteBuffer buffer) {
+		buffer.putInt(map.size());
+		for (var item : map.entrySet()) {
+			writeString(item.getKey(), buffer);
+			item.getValue().writeItem(buffer);
+		}
+	}
+
 	public String getString(String key) {
 		return map.get(key).getString();
 	}
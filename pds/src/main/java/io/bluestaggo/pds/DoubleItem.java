@@ -3,9 +3,12 @@ package io.bluestaggo.pds;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 public class DoubleItem extends StructureItem {
+	public static final int TYPE = 6;
+
 	public double value;
 
 	public DoubleItem() {
@@ -63,6 +66,16 @@ public class DoubleItem extends StructureItem {
 		return value;
 	}
 
+	@Override
+	public int getType() {
+		return TYPE;
+	}
+
+	@Override
+	protected int getSize() {
+		return 8;
+	}
+
 	@Override
 	protected void read(DataInputStream stream) throws IOException {
 		value = stream.readDouble();
@@ -72,4 +85,15 @@ public class DoubleItem extends StructureItem {
 	protected void write(DataOutputStream stream) throws IOException {
 		stream.writeDouble(value);
 	}
+
+	@Override
+	protected void read(ByteBuffer buffer) {
+		value = buffer.getDouble();
+	}
+
+	@Override
+	protected void write(ByteBuffer buffer) {
+		// Same bits as DataOutputStream.writeDouble, which collapses NaNs.
+		buffer.putLong(Double.doubleToLongBits(value));
+	}
 }
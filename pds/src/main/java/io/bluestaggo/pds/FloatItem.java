@@ -3,9 +3,12 @@ package io.bluestaggo.pds;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 public class FloatItem extends StructureItem {
+	public static final int TYPE = 5;
+
 	public float value;
 
 	public FloatItem() {
@@ -63,6 +66,16 @@ public class FloatItem extends StructureItem {
 		return value;
 	}
 
+	@Override
+	public int getType() {
+		return TYPE;
+	}
+
+	@Override
+	protected int getSize() {
+		return 4;
+	}
+
 	@Override
 	protected void read(DataInputStream stream) throws IOException {
 		value = stream.readFloat();
@@ -72,4 +85,15 @@ public class FloatItem extends StructureItem {
 	protected void write(DataOutputStream stream) throws IOException {
 		stream.writeFloat(value);
 	}
+
+	@Override
+	protected void read(ByteBuffer buffer) {
+		value = buffer.getFloat();
+	}
+
+	@Override
+	protected void write(ByteBuffer buffer) {
+		// Same bits as DataOutputStream.writeFloat, which collapses NaNs.
+		buffer.putInt(Float.floatToIntBits(value));
+	}
 }
@@ -6,6 +6,8 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 
 public class IntArrayItem extends StructureItem {
+	public static final int TYPE = 9;
+
 	public int[] value;
 
 	public IntArrayItem() {
@@ -25,6 +27,16 @@ public class IntArrayItem extends StructureItem {
 		return "<" + value.length + " ints>";
 	}
 
+	@Override
+	public int getType() {
+		return TYPE;
+	}
+
+	@Override
+	protected int getSize() {
+		return 4 + value.length * 4;
+	}
+
 	@Override
 	protected void read(DataInputStream stream) throws IOException {
 		int length = stream.readInt();
@@ -42,4 +54,19 @@ public class IntArrayItem extends StructureItem {
 		stream.writeInt(value.length * 4);
 		stream.write(buffer.array());
 	}
+
+	@Override
+	protected void read(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		value = new int[length / 4];
+		buffer.asIntBuffer().get(value);
+		buffer.position(buffer.position() + length);
+	}
+
+	@Override
+	protected void write(ByteBuffer buffer) {
+		buffer.putInt(value.length * 4);
+		buffer.asIntBuffer().put(value);
+		buffer.position(buffer.position() + value.length * 4);
+	}
 }
@@ -3,9 +3,12 @@ package io.bluestaggo.pds;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 public class IntItem extends StructureItem {
+	public static final int TYPE = 3;
+
 	public int value;
 
 	public IntItem() {
@@ -63,6 +66,16 @@ public class IntItem extends StructureItem {
 		return value;
 	}
 
+	@Override
+	public int getType() {
+		return TYPE;
+	}
+
+	@Override
+	protected int getSize() {
+		return 4;
+	}
+
 	@Override
 	protected void read(DataInputStream stream) throws IOException {
 		value = stream.readInt();
@@ -72,4 +85,14 @@ public class IntItem extends StructureItem {
 	protected void write(DataOutputStream stream) throws IOException {
 		stream.writeInt(value);
 	}
+
+	@Override
+	protected void read(ByteBuffer buffer) {
+		value = buffer.getInt();
+	}
+
+	@Override
+	protected void write(ByteBuffer buffer) {
+		buffer.putInt(value);
+	}
 }
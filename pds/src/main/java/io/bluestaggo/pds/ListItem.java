@@ -3,10 +3,13 @@ package io.bluestaggo.pds;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
 public class ListItem extends StructureItem {
+	public static final int TYPE = 12;
+
 	public final List<StructureItem> list;
 
 	public ListItem() {
@@ -36,6 +39,20 @@ public class ListItem extends StructureItem {
 		return builder.toString();
 	}
 
+	@Override
+	public int getType() {
+		return TYPE;
+	}
+
+	@Override
+	protected int getSize() {
+		int size = 4;
+		for (StructureItem item : list) {
+			size += item.getEncodedSize();
+		}
+		return size;
+	}
+
 	@Override
 	protected void read(DataInputStream stream) throws IOException {
 		int length = stream.readInt();
@@ -51,4 +68,20 @@ public class ListItem extends StructureItem {
 			item.writeItem(stream);
 		}
 	}
+
+	@Override
+	protected void read(ByteBuffer buffer) throws IOException {
+		int length = buffer.getInt();
+		for (int i = 0; i < length; i++) {
+			list.add(readItem(buffer));
+		}
+	}
+
+	@Override
+	protected void write(ByteBuffer buffer) {
+		buffer.putInt(list.size());
+		for (StructureItem item : list) {
+			item.writeItem(buffer);
+		}
+	}
 }
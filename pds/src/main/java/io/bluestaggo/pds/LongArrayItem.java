@@ -6,6 +6,8 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 
 public class LongArrayItem extends StructureItem {
+	public static final int TYPE = 10;
+
 	public long[] value;
 
 	public LongArrayItem() {
@@ -25,6 +27,16 @@ public class LongArrayItem extends StructureItem {
 		return "<" + value.length + " longs>";
 	}
 
+	@Override
+	public int getType() {
+		return TYPE;
+	}
+
+	@Override
+	protected int getSize() {
+		return 4 + value.length * 8;
+	}
+
 	@Override
 	protected void read(DataInputStream stream) throws IOException {
 		int length = stream.readInt();
@@ -42,4 +54,19 @@ public class LongArrayItem extends StructureItem {
 		stream.writeInt(value.length * 8);
 		stream.write(buffer.array());
 	}
+
+	@Override
+	protected void read(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		value = new long[length / 8];
+		buffer.asLongBuffer().get(value);
+		buffer.position(buffer.position() + length);
+	}
+
+	@Override
+	protected void write(ByteBuffer buffer) {
+		buffer.putInt(value.length * 8);
+		buffer.asLongBuffer().put(value);
+		buffer.position(buffer.position() + value.length * 8);
+	}
 }
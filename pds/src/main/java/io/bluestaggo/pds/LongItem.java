@@ -3,9 +3,12 @@ package io.bluestaggo.pds;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 public class LongItem extends StructureItem {
+	public static final int TYPE = 4;
+
 	public long value;
 
 	public LongItem() {
@@ -63,6 +66,16 @@ public class LongItem extends StructureItem {
 		return value;
 	}
 
+	@Override
+	public int getType() {
+		return TYPE;
+	}
+
+	@Override
+	protected int getSize() {
+		return 8;
+	}
+
 	@Override
 	protected void read(DataInputStream stream) throws IOException {
 		value = stream.readLong();
@@ -72,4 +85,14 @@ public class LongItem extends StructureItem {
 	protected void write(DataOutputStream stream) throws IOException {
 		stream.writeLong(value);
 	}
+
+	@Override
+	protected void read(ByteBuffer buffer) {
+		value = buffer.getLong();
+	}
+
+	@Override
+	protected void write(ByteBuffer buffer) {
+		buffer.putLong(value);
+	}
 }
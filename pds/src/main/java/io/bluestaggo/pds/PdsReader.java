@@ -0,0 +1,412 @@
+package io.bluestaggo.pds;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Reads encoded items one value at a time, without building CompoundItem and ListItem trees.
+// Each read method takes the next value, which has to be of that type. Compounds are read by
+// calling beginCompound() and then nextKey() until it returns null, reading or skipping the value
+// after each key; lists by reading or skipping as many values as beginList() returns.
+// Reads both the version 1 layout and the compact one written by CompactEncoder.
+public class PdsReader {
+	private final ByteBuffer buffer;
+	// Strings of compact data, null for version 1 data.
+	private final String[] dictionary;
+	private int[] compounds = new int[8];
+	private int depth;
+
+	// The buffer has to be big-endian, the default for new buffers. Compact data is recognized
+	// by its first byte, and its dictionary is read right away.
+	public PdsReader(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+
+		if (buffer.hasRemaining() && (buffer.get(buffer.position()) & 0xFF) == CompactEncoder.MAGIC) {
+			buffer.get();
+			dictionary = readDictionary();
+		} else {
+			dictionary = null;
+		}
+	}
+
+	private PdsReader(ByteBuffer buffer, String[] dictionary) {
+		this.buffer = buffer;
+		this.dictionary = dictionary;
+	}
+
+	// A reader for the value at a position of the same data.
+	PdsReader at(int position) {
+		return new PdsReader(buffer.duplicate().position(position), dictionary);
+	}
+
+	int position() {
+		return buffer.position();
+	}
+
+	public boolean isCompact() {
+		return dictionary != null;
+	}
+
+	private String[] readDictionary() throws IOException {
+		int length = readVarInt();
+		// Every entry takes at least a byte, which keeps corrupt data from allocating too much.
+		if (length < 0 || length > buffer.remaining()) {
+			throw new IOException("Invalid dictionary length " + length);
+		}
+
+		String[] strings = new String[length];
+		for (int i = 0; i < length; i++) {
+			int stringLength = readVarInt();
+			if (stringLength < 0) {
+				throw new IOException("Negative length " + stringLength);
+			}
+			strings[i] = readUtf8(stringLength);
+		}
+		return strings;
+	}
+
+	private void require(int bytes) throws EOFException {
+		if (buffer.remaining() < bytes) {
+			throw new EOFException();
+		}
+	}
+
+	private void advance(int bytes) throws EOFException {
+		require(bytes);
+		buffer.position(buffer.position() + bytes);
+	}
+
+	private void expect(int type) throws IOException {
+		int found = peekType();
+		if (found != type) {
+			throw new IOException("Expected item type " + type + ", found " + found);
+		}
+		buffer.get();
+	}
+
+	private int readVarInt() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			require(1);
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	private long readVarLong() throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 70; shift += 7) {
+			require(1);
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	private void skipVarInt() throws IOException {
+		for (int i = 0; i < 10; i++) {
+			require(1);
+			if (buffer.get() >= 0) {
+				return;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	private static int unZigZag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private int readLength() throws IOException {
+		int length;
+		if (dictionary != null) {
+			length = readVarInt();
+		} else {
+			require(4);
+			length = buffer.getInt();
+		}
+
+		if (length < 0) {
+			throw new IOException("Negative length " + length);
+		}
+		return length;
+	}
+
+	private String readRawString() throws IOException {
+		if (dictionary != null) {
+			int index = readVarInt();
+			if (index < 0 || index >= dictionary.length) {
+				throw new IOException("Invalid string index " + index);
+			}
+			return dictionary[index];
+		}
+
+		require(2);
+		return readUtf8(buffer.getShort() & 0xFFFF);
+	}
+
+	private String readUtf8(int length) throws IOException {
+		require(length);
+
+		if (buffer.hasArray()) {
+			String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+			return string;
+		}
+
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// Type tag of the next value, without reading it.
+	public int peekType() throws IOException {
+		require(1);
+		return buffer.get(buffer.position()) & 0xFF;
+	}
+
+	public byte readByte() throws IOException {
+		expect(ByteItem.TYPE);
+		require(1);
+		return buffer.get();
+	}
+
+	public boolean readBoolean() throws IOException {
+		return readByte() != 0;
+	}
+
+	public short readShort() throws IOException {
+		expect(ShortItem.TYPE);
+		if (dictionary != null) {
+			return (short) unZigZag(readVarInt());
+		}
+		require(2);
+		return buffer.getShort();
+	}
+
+	public int readInt() throws IOException {
+		expect(IntItem.TYPE);
+		if (dictionary != null) {
+			return unZigZag(readVarInt());
+		}
+		require(4);
+		return buffer.getInt();
+	}
+
+	public long readLong() throws IOException {
+		expect(LongItem.TYPE);
+		if (dictionary != null) {
+			return unZigZag(readVarLong());
+		}
+		require(8);
+		return buffer.getLong();
+	}
+
+	public float readFloat() throws IOException {
+		expect(FloatItem.TYPE);
+		require(4);
+		return buffer.getFloat();
+	}
+
+	public double readDouble() throws IOException {
+		expect(DoubleItem.TYPE);
+		require(8);
+		return buffer.getDouble();
+	}
+
+	public String readString() throws IOException {
+		expect(StringItem.TYPE);
+		return readRawString();
+	}
+
+	public byte[] readByteArray() throws IOException {
+		expect(ByteArrayItem.TYPE);
+		int length = readLength();
+		require(length);
+		byte[] value = new byte[length];
+		buffer.get(value);
+		return value;
+	}
+
+	public short[] readShortArray() throws IOException {
+		expect(ShortArrayItem.TYPE);
+		int length = readLength();
+		require(length);
+		short[] value = new short[length / 2];
+		buffer.asShortBuffer().get(value);
+		buffer.position(buffer.position() + length);
+		return value;
+	}
+
+	public int[] readIntArray() throws IOException {
+		expect(IntArrayItem.TYPE);
+		int length = readLength();
+		require(length);
+		int[] value = new int[length / 4];
+		buffer.asIntBuffer().get(value);
+		buffer.position(buffer.position() + length);
+		return value;
+	}
+
+	public long[] readLongArray() throws IOException {
+		expect(LongArrayItem.TYPE);
+		int length = readLength();
+		require(length);
+		long[] value = new long[length / 8];
+		buffer.asLongBuffer().get(value);
+		buffer.position(buffer.position() + length);
+		return value;
+	}
+
+	// Returns the contents of an array value as a slice of the buffer.
+	ByteBuffer readArraySlice(int type) throws IOException {
+		expect(type);
+		int length = readLength();
+		require(length);
+		ByteBuffer slice = buffer.slice(buffer.position(), length);
+		buffer.position(buffer.position() + length);
+		return slice;
+	}
+
+	// Reads the next value as a whole item, for the parts of a file that are easier to handle that way.
+	public StructureItem readItem() throws IOException {
+		if (dictionary == null) {
+			return StructureItem.readItem(buffer);
+		}
+
+		return switch (peekType()) {
+			case ByteItem.TYPE -> new ByteItem(readByte());
+			case ShortItem.TYPE -> new ShortItem(readShort());
+			case IntItem.TYPE -> new IntItem(readInt());
+			case LongItem.TYPE -> new LongItem(readLong());
+			case FloatItem.TYPE -> new FloatItem(readFloat());
+			case DoubleItem.TYPE -> new DoubleItem(readDouble());
+			case ByteArrayItem.TYPE -> new ByteArrayItem(readByteArray());
+			case ShortArrayItem.TYPE -> new ShortArrayItem(readShortArray());
+			case IntArrayItem.TYPE -> new IntArrayItem(readIntArray());
+			case LongArrayItem.TYPE -> new LongArrayItem(readLongArray());
+			case StringItem.TYPE -> new StringItem(readString());
+			case ListItem.TYPE -> {
+				int length = beginList();
+				ListItem list = new ListItem();
+				for (int i = 0; i < length; i++) {
+					list.list.add(readItem());
+				}
+				yield list;
+			}
+			case CompoundItem.TYPE -> {
+				beginCompound();
+				CompoundItem compound = new CompoundItem();
+				String key;
+				while ((key = nextKey()) != null) {
+					compound.map.put(key, readItem());
+				}
+				yield compound;
+			}
+			// Like StructureItem.readItem, unknown types are read as a null item with no data.
+			default -> {
+				buffer.get();
+				yield null;
+			}
+		};
+	}
+
+	// Returns the number of values in the list.
+	public int beginList() throws IOException {
+		expect(ListItem.TYPE);
+		return readLength();
+	}
+
+	public void beginCompound() throws IOException {
+		expect(CompoundItem.TYPE);
+		int length = readLength();
+
+		if (depth == compounds.length) {
+			int[] newCompounds = new int[compounds.length * 2];
+			System.arraycopy(compounds, 0, newCompounds, 0, depth);
+			compounds = newCompounds;
+		}
+		compounds[depth++] = length;
+	}
+
+	// Returns the key of the next value in the innermost compound, or null once all of them
+	// have been read, which also ends the compound.
+	public String nextKey() throws IOException {
+		if (depth == 0) {
+			throw new IllegalStateException("Not reading a compound");
+		}
+
+		if (compounds[depth - 1] == 0) {
+			depth--;
+			return null;
+		}
+
+		compounds[depth - 1]--;
+		return readRawString();
+	}
+
+	// Skips whatever is left of the innermost compound.
+	public void endCompound() throws IOException {
+		while (nextKey() != null) {
+			skip();
+		}
+	}
+
+	private void skipString() throws IOException {
+		if (dictionary != null) {
+			skipVarInt();
+		} else {
+			require(2);
+			advance(buffer.getShort() & 0xFFFF);
+		}
+	}
+
+	// Skips the next value, including everything inside it.
+	public void skip() throws IOException {
+		require(1);
+		int type = buffer.get() & 0xFF;
+
+		switch (type) {
+			case ByteItem.TYPE -> advance(1);
+			case FloatItem.TYPE -> advance(4);
+			case DoubleItem.TYPE -> advance(8);
+			case ShortItem.TYPE, IntItem.TYPE, LongItem.TYPE -> {
+				if (dictionary != null) {
+					skipVarInt();
+				} else {
+					advance(type == ShortItem.TYPE ? 2 : type == IntItem.TYPE ? 4 : 8);
+				}
+			}
+			case ByteArrayItem.TYPE, ShortArrayItem.TYPE, IntArrayItem.TYPE, LongArrayItem.TYPE -> advance(readLength());
+			case StringItem.TYPE -> skipString();
+			case ListItem.TYPE -> {
+				int length = readLength();
+				for (int i = 0; i < length; i++) {
+					skip();
+				}
+			}
+			case CompoundItem.TYPE -> {
+				int length = readLength();
+				for (int i = 0; i < length; i++) {
+					skipString();
+					skip();
+				}
+			}
+			// Like StructureItem.readItem, unknown types are read as a null item with no data.
+			default -> {
+			}
+		}
+	}
+}
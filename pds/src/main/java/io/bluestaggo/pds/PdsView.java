@@ -0,0 +1,142 @@
+package io.bluestaggo.pds;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// A compound read in place. Creating a view walks the compound once to find where each value
+// starts, and values are only decoded when asked for. Arrays are returned as read-only slices of
+// the underlying buffer instead of copies, so they are only valid as long as the buffer is.
+public class PdsView {
+	private final PdsReader reader;
+	private final ByteBuffer buffer;
+	private final Map<String, Integer> offsets = new HashMap<>();
+
+	// Indexes the compound at the buffer's position, leaving the position after it. The buffer
+	// has to be big-endian, the default for new buffers.
+	public PdsView(ByteBuffer buffer) throws IOException {
+		this(new PdsReader(buffer), buffer);
+	}
+
+	private PdsView(PdsReader reader, ByteBuffer buffer) throws IOException {
+		this.reader = reader;
+		this.buffer = buffer;
+
+		reader.beginCompound();
+		String key;
+		while ((key = reader.nextKey()) != null) {
+			offsets.put(key, reader.position());
+			reader.skip();
+		}
+	}
+
+	// Maps a file holding a compound, for files that are read far more than they are written.
+	public static PdsView map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			// The mapping stays valid after the channel is closed.
+			return new PdsView(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	public Set<String> keySet() {
+		return offsets.keySet();
+	}
+
+	public boolean containsKey(String key) {
+		return offsets.containsKey(key);
+	}
+
+	// Type tag of a value, or 0 if there is no value for the key.
+	public int getType(String key) {
+		Integer offset = offsets.get(key);
+		return offset == null ? 0 : buffer.get(offset) & 0xFF;
+	}
+
+	// A reader positioned at a value, after checking its type.
+	private PdsReader valueReader(String key, int type) throws IOException {
+		Integer offset = offsets.get(key);
+		if (offset == null) {
+			throw new IOException("No value for \"" + key + "\"");
+		}
+
+		int found = buffer.get(offset) & 0xFF;
+		if (found != type) {
+			throw new IOException("Expected item type " + type + " for \"" + key + "\", found " + found);
+		}
+		return reader.at(offset);
+	}
+
+	public byte getByte(String key) throws IOException {
+		return valueReader(key, ByteItem.TYPE).readByte();
+	}
+
+	public boolean getBoolean(String key) throws IOException {
+		return getByte(key) != 0;
+	}
+
+	public short getShort(String key) throws IOException {
+		return valueReader(key, ShortItem.TYPE).readShort();
+	}
+
+	public int getInt(String key) throws IOException {
+		return valueReader(key, IntItem.TYPE).readInt();
+	}
+
+	public long getLong(String key) throws IOException {
+		return valueReader(key, LongItem.TYPE).readLong();
+	}
+
+	public float getFloat(String key) throws IOException {
+		return valueReader(key, FloatItem.TYPE).readFloat();
+	}
+
+	public double getDouble(String key) throws IOException {
+		return valueReader(key, DoubleItem.TYPE).readDouble();
+	}
+
+	public String getString(String key) throws IOException {
+		return valueReader(key, StringItem.TYPE).readString();
+	}
+
+	private ByteBuffer arraySlice(String key, int type) throws IOException {
+		return valueReader(key, type).readArraySlice(type).asReadOnlyBuffer();
+	}
+
+	public ByteBuffer getByteArray(String key) throws IOException {
+		return arraySlice(key, ByteArrayItem.TYPE);
+	}
+
+	public ShortBuffer getShortArray(String key) throws IOException {
+		return arraySlice(key, ShortArrayItem.TYPE).asShortBuffer();
+	}
+
+	public IntBuffer getIntArray(String key) throws IOException {
+		return arraySlice(key, IntArrayItem.TYPE).asIntBuffer();
+	}
+
+	public LongBuffer getLongArray(String key) throws IOException {
+		return arraySlice(key, LongArrayItem.TYPE).asLongBuffer();
+	}
+
+	public PdsView getCompound(String key) throws IOException {
+		PdsReader compoundReader = valueReader(key, CompoundItem.TYPE);
+		return new PdsView(compoundReader, buffer);
+	}
+
+	// A reader positioned at the value, for lists and anything else easier to read in sequence.
+	public PdsReader getReader(String key) throws IOException {
+		Integer offset = offsets.get(key);
+		if (offset == null) {
+			throw new IOException("No value for \"" + key + "\"");
+		}
+		return reader.at(offset);
+	}
+}
@@ -6,6 +6,8 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 
 public class ShortArrayItem extends StructureItem {
+	public static final int TYPE = 8;
+
 	public short[] value;
 
 	public ShortArrayItem() {
@@ -25,6 +27,16 @@ public class ShortArrayItem extends StructureItem {
 		return "<" + value.length + " shorts>";
 	}
 
+	@Override
+	public int getType() {
+		return TYPE;
+	}
+
+	@Override
+	protected int getSize() {
+		return 4 + value.length * 2;
+	}
+
 	@Override
 	protected void read(DataInputStream stream) throws IOException {
 		int length = stream.readInt();
@@ -42,4 +54,19 @@ public class ShortArrayItem extends StructureItem {
 		stream.writeInt(value.length * 2);
 		stream.write(buffer.array());
 	}
+
+	@Override
+	protected void read(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		value = new short[length / 2];
+		buffer.asShortBuffer().get(value);
+		buffer.position(buffer.position() + length);
+	}
+
+	@Override
+	protected void write(ByteBuffer buffer) {
+		buffer.putInt(value.length * 2);
+		buffer.asShortBuffer().put(value);
+		buffer.position(buffer.position() + value.length * 2);
+	}
 }
@@ -3,9 +3,12 @@ package io.bluestaggo.pds;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 public class ShortItem extends StructureItem {
+	public static final int TYPE = 2;
+
 	public short value;
 
 	public ShortItem() {
@@ -67,6 +70,16 @@ public class ShortItem extends StructureItem {
 		return value;
 	}
 
+	@Override
+	public int getType() {
+		return TYPE;
+	}
+
+	@Override
+	protected int getSize() {
+		return 2;
+	}
+
 	@Override
 	protected void read(DataInputStream stream) throws IOException {
 		value = stream.readShort();
@@ -76,4 +89,14 @@ public class ShortItem extends StructureItem {
 	protected void write(DataOutputStream stream) throws IOException {
 		stream.writeShort(value);
 	}
+
+	@Override
+	protected void read(ByteBuffer buffer) {
+		value = buffer.getShort();
+	}
+
+	@Override
+	protected void write(ByteBuffer buffer) {
+		buffer.putShort(value);
+	}
 }
@@ -3,9 +3,12 @@ package io.bluestaggo.pds;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 public class StringItem extends StructureItem {
+	public static final int TYPE = 11;
+
 	public String value;
 
 	public StringItem() {
@@ -33,6 +36,16 @@ public class StringItem extends StructureItem {
 		return value == null ? "" : value;
 	}
 
+	@Override
+	public int getType() {
+		return TYPE;
+	}
+
+	@Override
+	protected int getSize() {
+		return getStringSize(value);
+	}
+
 	@Override
 	protected void read(DataInputStream stream) throws IOException {
 		value = readString(stream);
@@ -42,4 +55,14 @@ public class StringItem extends StructureItem {
 	protected void write(DataOutputStream stream) throws IOException {
 		writeString(value, stream);
 	}
+
+	@Override
+	protected void read(ByteBuffer buffer) {
+		value = readString(buffer);
+	}
+
+	@Override
+	protected void write(ByteBuffer buffer) {
+		writeString(value, buffer);
+	}
 }
@@ -1,27 +1,32 @@
 package io.bluestaggo.pds;
 
 import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public abstract class StructureItem {
-	private static final List<Class<? extends StructureItem>> REGISTERED_TYPES = List.of(
-			ByteItem.class,
-			ShortItem.class,
-			IntItem.class,
-			LongItem.class,
-			FloatItem.class,
-			DoubleItem.class,
-			ByteArrayItem.class,
-			ShortArrayItem.class,
-			IntArrayItem.class,
-			LongArrayItem.class,
-			StringItem.class,
-			ListItem.class,
-			CompoundItem.class
+	// Indexed by type tag - 1, each item class's TYPE.
+	private static final List<Supplier<StructureItem>> FACTORIES = List.of(
+			ByteItem::new,
+			ShortItem::new,
+			IntItem::new,
+			LongItem::new,
+			FloatItem::new,
+			DoubleItem::new,
+			ByteArrayItem::new,
+			ShortArrayItem::new,
+			IntArrayItem::new,
+			LongArrayItem::new,
+			StringItem::new,
+			ListItem::new,
+			CompoundItem::new
 	);
 
 	protected static String readString(DataInputStream stream) throws IOException {
@@ -36,6 +41,42 @@ public abstract class StructureItem {
 		stream.write(bytes);
 	}
 
+	protected static String readString(ByteBuffer buffer) {
+		int length = buffer.getShort() & 0xFFFF;
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	protected static void writeString(String string, ByteBuffer buffer) {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		buffer.putShort((short) bytes.length);
+		buffer.put(bytes);
+	}
+
+	// Encoded size of a string, counted the way String.getBytes encodes UTF-8 so the string
+	// doesn't have to be encoded twice.
+	protected static int getStringSize(String string) {
+		int size = 2;
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if (c < 0x80) {
+				size += 1;
+			} else if (c < 0x800) {
+				size += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < string.length() && Character.isLowSurrogate(string.charAt(i + 1))) {
+				size += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				// Unpaired surrogates are replaced with '?'.
+				size += 1;
+			} else {
+				size += 3;
+			}
+		}
+		return size;
+	}
+
 	@Override
 	public String toString() {
 		return getString();
@@ -113,33 +154,41 @@ public abstract class StructureItem {
 		throw new UnsupportedOperationException(getUnsupportedMessage("Map"));
 	}
 
-	public int getType() {
-		return REGISTERED_TYPES.indexOf(getClass()) + 1;
-	}
+	public abstract int getType();
 
 	protected abstract void read(DataInputStream stream) throws IOException;
 
 	protected abstract void write(DataOutputStream stream) throws IOException;
 
+	// Size of the item's data, not counting its type tag.
+	protected abstract int getSize();
+
+	protected abstract void read(ByteBuffer buffer) throws IOException;
+
+	protected abstract void write(ByteBuffer buffer);
+
+	public int getEncodedSize() {
+		return 1 + getSize();
+	}
+
 	public static StructureItem readItem(DataInputStream stream) throws IOException {
 		int type = stream.readUnsignedByte();
 
-		if (type == 0 || type > REGISTERED_TYPES.size()) {
-			return null;
+		// Compact data is decoded from a buffer, which takes the rest of the stream.
+		if (type == CompactEncoder.MAGIC) {
+			byte[] bytes = stream.readAllBytes();
+			ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 1);
+			buffer.put((byte) type).put(bytes).flip();
+			return new PdsReader(buffer).readItem();
 		}
 
-		try {
-			StructureItem item = REGISTERED_TYPES.get(type - 1).getDeclaredConstructor().newInstance();
-			item.read(stream);
-			return item;
-		} catch (NoSuchMethodException
-				| InstantiationException
-				| IllegalAccessException
-				| IllegalArgumentException
-				| java.lang.reflect.InvocationTargetException e) {
-			e.printStackTrace();
+		if (type == 0 || type > FACTORIES.size()) {
 			return null;
 		}
+
+		StructureItem item = FACTORIES.get(type - 1).get();
+		item.read(stream);
+		return item;
 	}
 
 	public void writeItem(DataOutputStream stream) throws IOException {
@@ -147,17 +196,69 @@ public abstract class StructureItem {
 		write(stream);
 	}
 
+	// Reads an item from the buffer's position onward, which may be a heap, direct or mapped buffer.
+	// The buffer has to be big-endian, the default for new buffers.
+	public static StructureItem readItem(ByteBuffer buffer) throws IOException {
+		if (buffer.hasRemaining() && (buffer.get(buffer.position()) & 0xFF) == CompactEncoder.MAGIC) {
+			return new PdsReader(buffer).readItem();
+		}
+
+		try {
+			int type = buffer.get() & 0xFF;
+
+			if (type == 0 || type > FACTORIES.size()) {
+				return null;
+			}
+
+			StructureItem item = FACTORIES.get(type - 1).get();
+			item.read(buffer);
+			return item;
+		} catch (BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+
+	// Writes the item at the buffer's position, which needs getEncodedSize() bytes remaining.
+	public void writeItem(ByteBuffer buffer) {
+		buffer.put((byte) getType());
+		write(buffer);
+	}
+
 	public static StructureItem readItemFromPath(Path path) throws IOException {
-		try (InputStream istream = Files.newInputStream(path)) {
-			var distream = new DataInputStream(istream);
-			return readItem(distream);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("\"" + path + "\" is too large to read");
+			}
+
+			ByteBuffer buffer = BufferPool.DIRECT.acquire((int) size);
+			try {
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer) < 0) {
+						break;
+					}
+				}
+				buffer.flip();
+				return readItem(buffer);
+			} finally {
+				BufferPool.DIRECT.release(buffer);
+			}
 		}
 	}
 
+	// Encodes the whole item up front in the compact layout, so the file is written with as few
+	// calls as the OS allows.
 	public void writeItemToPath(Path path) throws IOException {
-		try (OutputStream ostream = Files.newOutputStream(path)) {
-			var dostream = new DataOutputStream(ostream);
-			writeItem(dostream);
+		CompactEncoder encoder = new CompactEncoder(this);
+		ByteBuffer buffer = BufferPool.DIRECT.acquire(encoder.getEncodedSize());
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			encoder.write(buffer);
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} finally {
+			BufferPool.DIRECT.release(buffer);
 		}
 	}
 }
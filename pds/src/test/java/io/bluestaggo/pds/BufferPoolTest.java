@@ -0,0 +1,95 @@
+package io.bluestaggo.pds;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BufferPoolTest {
+	@Test
+	public void acquiredBuffersAreReady() {
+		BufferPool pool = new BufferPool(false);
+		ByteBuffer buffer = pool.acquire(100);
+		assertEquals(0, buffer.position());
+		assertEquals(100, buffer.limit());
+		assertTrue(buffer.capacity() >= 100);
+		assertEquals(ByteOrder.BIG_ENDIAN, buffer.order());
+		assertFalse(buffer.isDirect());
+
+		buffer.order(ByteOrder.LITTLE_ENDIAN).putInt(1);
+		pool.release(buffer);
+
+		ByteBuffer reused = pool.acquire(50);
+		assertSame(buffer, reused);
+		assertEquals(0, reused.position());
+		assertEquals(50, reused.limit());
+		assertEquals(ByteOrder.BIG_ENDIAN, reused.order());
+	}
+
+	@Test
+	public void directPoolGivesDirectBuffers() {
+		BufferPool pool = new BufferPool(true);
+		ByteBuffer buffer = pool.acquire(10);
+		assertTrue(buffer.isDirect());
+		pool.release(buffer);
+		assertSame(buffer, pool.acquire(10));
+	}
+
+	@Test
+	public void buffersOfTheOtherKindAreNotPooled() {
+		BufferPool pool = new BufferPool(false);
+		ByteBuffer direct = ByteBuffer.allocateDirect(100);
+		pool.release(direct);
+		assertNotSame(direct, pool.acquire(100));
+	}
+
+	@Test
+	public void smallBuffersAreNotReusedForLargerSizes() {
+		BufferPool pool = new BufferPool(false);
+		ByteBuffer small = pool.acquire(100);
+		pool.release(small);
+
+		ByteBuffer large = pool.acquire(small.capacity() + 1);
+		assertNotSame(small, large);
+		assertTrue(large.capacity() > small.capacity());
+		assertEquals(small.capacity() + 1, large.limit());
+		assertSame(small, pool.acquire(100));
+	}
+
+	@Test
+	public void oversizeBuffersAreNotPooled() {
+		BufferPool pool = new BufferPool(false);
+		int size = 4 * 1024 * 1024 + 1;
+		ByteBuffer buffer = pool.acquire(size);
+		assertEquals(size, buffer.limit());
+		pool.release(buffer);
+		assertNotSame(buffer, pool.acquire(size));
+	}
+
+	@Test
+	public void poolIsCapped() {
+		BufferPool pool = new BufferPool(false);
+		List<ByteBuffer> released = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			released.add(pool.acquire(100));
+		}
+		released.forEach(pool::release);
+
+		Map<ByteBuffer, Boolean> reused = new IdentityHashMap<>();
+		for (int i = 0; i < 12; i++) {
+			ByteBuffer buffer = pool.acquire(100);
+			for (ByteBuffer r : released) {
+				if (r == buffer) {
+					reused.put(buffer, true);
+				}
+			}
+		}
+		assertEquals(8, reused.size());
+	}
+}
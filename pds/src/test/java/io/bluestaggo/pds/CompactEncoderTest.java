@@ -0,0 +1,193 @@
+package io.bluestaggo.pds;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static io.bluestaggo.pds.ItemAssertions.assertItemEquals;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactEncoderTest {
+	private static byte[] encodeCompact(StructureItem item) {
+		CompactEncoder encoder = new CompactEncoder(item);
+		ByteBuffer buffer = ByteBuffer.allocate(encoder.getEncodedSize());
+		encoder.write(buffer);
+		assertFalse(buffer.hasRemaining(), "encoded size doesn't match what was written");
+		return buffer.array();
+	}
+
+	private static byte[] encodeStream(StructureItem item) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		item.writeItem(new DataOutputStream(out));
+		return out.toByteArray();
+	}
+
+	private static byte[] encodeBuffer(StructureItem item) {
+		ByteBuffer buffer = ByteBuffer.allocate(item.getEncodedSize());
+		item.writeItem(buffer);
+		assertFalse(buffer.hasRemaining(), "encoded size doesn't match what was written");
+		return buffer.array();
+	}
+
+	private static StructureItem readStream(byte[] bytes) throws IOException {
+		return StructureItem.readItem(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+	private static StructureItem readBuffer(byte[] bytes) throws IOException {
+		return StructureItem.readItem(ByteBuffer.wrap(bytes));
+	}
+
+	// Values around the points where zig-zag varints change length, and empty containers.
+	private static CompoundItem edgeValues() {
+		CompoundItem item = new CompoundItem();
+		item.setByte("byteMin", Byte.MIN_VALUE);
+		item.setByte("byteMax", Byte.MAX_VALUE);
+		item.setShort("shortMin", Short.MIN_VALUE);
+		item.setShort("shortMax", Short.MAX_VALUE);
+		item.setShort("shortNegative", (short) -1);
+
+		int[] ints = {0, -1, 1, 63, -64, 64, -65, 8191, -8192, 8192, Integer.MIN_VALUE, Integer.MAX_VALUE};
+		for (int i = 0; i < ints.length; i++) {
+			item.setInt("int" + i, ints[i]);
+		}
+
+		long[] longs = {0, -1, 1, Integer.MIN_VALUE - 1L, Integer.MAX_VALUE + 1L, Long.MIN_VALUE, Long.MAX_VALUE};
+		for (int i = 0; i < longs.length; i++) {
+			item.setLong("long" + i, longs[i]);
+		}
+
+		item.setFloat("floatNaN", Float.NaN);
+		item.setFloat("floatNegativeZero", -0.0f);
+		item.setDouble("doubleMin", Double.MIN_VALUE);
+		item.setDouble("doubleInfinity", Double.NEGATIVE_INFINITY);
+		item.setString("stringEmpty", "");
+		item.setString("stringUnicode", "\u00e9\u4e2d\ud83d\ude00");
+
+		item.setByteArray("bytesEmpty", new byte[0]);
+		item.setShortArray("shortsEmpty", new short[0]);
+		item.setIntArray("intsEmpty", new int[0]);
+		item.setLongArray("longsEmpty", new long[0]);
+		item.setLongArray("longs", new long[]{Long.MIN_VALUE, -1, Long.MAX_VALUE});
+		item.setByteArray("bytesLarge", new byte[200]);
+
+		item.map.put("listEmpty", new ListItem());
+		item.map.put("compoundEmpty", new CompoundItem());
+		item.map.put("listOfEmpty", new ListItem(new ListItem(), new CompoundItem(), new ByteArrayItem(new byte[0])));
+		item.map.put("", new StringItem("empty key"));
+		return item;
+	}
+
+	@Test
+	public void compactStartsWithMagic() {
+		assertEquals(CompactEncoder.MAGIC, encodeCompact(edgeValues())[0] & 0xFF);
+	}
+
+	@Test
+	public void compactRoundTrip() throws IOException {
+		CompoundItem item = edgeValues();
+		byte[] bytes = encodeCompact(item);
+		assertItemEquals(item, readBuffer(bytes));
+		assertItemEquals(item, readStream(bytes));
+		assertItemEquals(item, new PdsReader(ByteBuffer.wrap(bytes)).readItem());
+	}
+
+	@Test
+	public void version1RoundTrip() throws IOException {
+		CompoundItem item = edgeValues();
+		byte[] bytes = encodeBuffer(item);
+		assertArrayEquals(bytes, encodeStream(item));
+		assertItemEquals(item, readBuffer(bytes));
+		assertItemEquals(item, readStream(bytes));
+		assertItemEquals(item, new PdsReader(ByteBuffer.wrap(bytes)).readItem());
+	}
+
+	@Test
+	public void scalarsAtTopLevel() throws IOException {
+		StructureItem[] items = {
+				new LongItem(Long.MIN_VALUE), new IntItem(-1), new ShortItem(Short.MIN_VALUE),
+				new StringItem("alone"), new ListItem(), new CompoundItem()
+		};
+		for (StructureItem item : items) {
+			assertItemEquals(item, readBuffer(encodeCompact(item)));
+		}
+	}
+
+	// Keys and strings are stored once in the dictionary however often they are used.
+	@Test
+	public void repeatedStringsAreStoredOnce() {
+		ListItem palette = new ListItem();
+		for (int i = 0; i < 100; i++) {
+			CompoundItem id = new CompoundItem();
+			id.setString("namespace", "voxelthing");
+			id.setString("name", "block_" + i);
+			palette.list.add(id);
+		}
+
+		byte[] compact = encodeCompact(palette);
+		assertEquals(1, count(compact, "namespace"));
+		assertEquals(1, count(compact, "voxelthing"));
+		assertEquals(100, count(encodeBuffer(palette), "namespace"));
+		assertTrue(compact.length < palette.getEncodedSize() / 2);
+	}
+
+	private static int count(byte[] bytes, String string) {
+		byte[] pattern = string.getBytes(StandardCharsets.UTF_8);
+		int count = 0;
+		outer:
+		for (int i = 0; i + pattern.length <= bytes.length; i++) {
+			for (int j = 0; j < pattern.length; j++) {
+				if (bytes[i + j] != pattern[j]) {
+					continue outer;
+				}
+			}
+			count++;
+		}
+		return count;
+	}
+
+	// {"a": int 5, "b": list of one string "xy"} as written before the compact layout existed.
+	private static final byte[] VERSION_1_FILE = {
+			CompoundItem.TYPE, 0, 0, 0, 2,
+			0, 1, 'a', IntItem.TYPE, 0, 0, 0, 5,
+			0, 1, 'b', ListItem.TYPE, 0, 0, 0, 1, StringItem.TYPE, 0, 2, 'x', 'y'
+	};
+
+	@Test
+	public void version1FileStillLoads(@TempDir Path dir) throws IOException {
+		Path path = dir.resolve("old.pds");
+		Files.write(path, VERSION_1_FILE);
+
+		CompoundItem expected = new CompoundItem();
+		expected.setInt("a", 5);
+		expected.map.put("b", new ListItem(new StringItem("xy")));
+
+		assertItemEquals(expected, StructureItem.readItemFromPath(path));
+		assertItemEquals(expected, readStream(VERSION_1_FILE));
+		assertEquals(5, new PdsView(ByteBuffer.wrap(VERSION_1_FILE)).getInt("a"));
+	}
+
+	@Test
+	public void filesAreWrittenCompact(@TempDir Path dir) throws IOException {
+		CompoundItem item = edgeValues();
+		Path path = dir.resolve("new.pds");
+		item.writeItemToPath(path);
+
+		assertEquals(CompactEncoder.MAGIC, Files.readAllBytes(path)[0] & 0xFF);
+		assertItemEquals(item, StructureItem.readItemFromPath(path));
+		assertEquals(Long.MIN_VALUE, PdsView.map(path).getLong("long5"));
+	}
+
+	@Test
+	public void truncatedCompactDataThrows() throws IOException {
+		byte[] bytes = encodeCompact(edgeValues());
+		for (int length = 1; length < bytes.length; length++) {
+			ByteBuffer truncated = ByteBuffer.wrap(bytes, 0, length);
+			assertThrows(IOException.class, () -> StructureItem.readItem(truncated.duplicate()), "length " + length);
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package io.bluestaggo.pds;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Only the scalar items implement equals(), so trees are compared here instead.
+final class ItemAssertions {
+	private ItemAssertions() {
+	}
+
+	static void assertItemEquals(StructureItem expected, StructureItem actual) {
+		assertItemEquals(expected, actual, "");
+	}
+
+	private static void assertItemEquals(StructureItem expected, StructureItem actual, String path) {
+		assertNotNull(actual, path);
+		assertEquals(expected.getType(), actual.getType(), path);
+
+		switch (expected.getType()) {
+			// By bits, so NaN and -0.0 count as read back correctly.
+			case FloatItem.TYPE -> assertEquals(Float.floatToRawIntBits(expected.getFloat()), Float.floatToRawIntBits(actual.getFloat()), path);
+			case DoubleItem.TYPE -> assertEquals(Double.doubleToRawLongBits(expected.getDouble()), Double.doubleToRawLongBits(actual.getDouble()), path);
+			case ByteArrayItem.TYPE -> assertArrayEquals(expected.getByteArray(), actual.getByteArray(), path);
+			case ShortArrayItem.TYPE -> assertArrayEquals(expected.getShortArray(), actual.getShortArray(), path);
+			case IntArrayItem.TYPE -> assertArrayEquals(expected.getIntArray(), actual.getIntArray(), path);
+			case LongArrayItem.TYPE -> assertArrayEquals(expected.getLongArray(), actual.getLongArray(), path);
+			case ListItem.TYPE -> {
+				List<StructureItem> expectedList = expected.getList();
+				List<StructureItem> actualList = actual.getList();
+				assertEquals(expectedList.size(), actualList.size(), path);
+				for (int i = 0; i < expectedList.size(); i++) {
+					assertItemEquals(expectedList.get(i), actualList.get(i), path + "[" + i + "]");
+				}
+			}
+			case CompoundItem.TYPE -> {
+				Map<String, StructureItem> expectedMap = expected.getMap();
+				Map<String, StructureItem> actualMap = actual.getMap();
+				assertEquals(expectedMap.keySet(), actualMap.keySet(), path);
+				for (var entry : expectedMap.entrySet()) {
+					assertItemEquals(entry.getValue(), actualMap.get(entry.getKey()), path + "." + entry.getKey());
+				}
+			}
+			default -> assertEquals(expected, actual, path);
+		}
+	}
+}
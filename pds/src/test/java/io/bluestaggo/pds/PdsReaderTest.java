@@ -0,0 +1,153 @@
+package io.bluestaggo.pds;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static io.bluestaggo.pds.ItemAssertions.assertItemEquals;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PdsReaderTest {
+	// Each test runs on both the version 1 layout and the compact one.
+	private static ByteBuffer encode(StructureItem item, boolean compact) {
+		if (compact) {
+			CompactEncoder encoder = new CompactEncoder(item);
+			ByteBuffer buffer = ByteBuffer.allocate(encoder.getEncodedSize());
+			encoder.write(buffer);
+			return buffer.flip();
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(item.getEncodedSize());
+		item.writeItem(buffer);
+		return buffer.flip();
+	}
+
+	private static CompoundItem nested() {
+		CompoundItem inner = new CompoundItem();
+		inner.setString("name", "stone");
+		inner.setLongArray("data", new long[]{1, -2, Long.MAX_VALUE});
+		inner.map.put("lists", new ListItem(new ListItem(new IntItem(1), new IntItem(2)), new ListItem()));
+
+		CompoundItem outer = new CompoundItem();
+		outer.map.put("inner", inner);
+		outer.map.put("compounds", new ListItem(inner, new CompoundItem(), inner));
+		return outer;
+	}
+
+	private static CompoundItem sample() {
+		CompoundItem item = new CompoundItem();
+		item.map.put("skipped", nested());
+		item.setInt("marker", -12345);
+		item.map.put("list", new ListItem(nested(), new ListItem(new StringItem("a")), new ByteArrayItem(new byte[7])));
+		item.setString("after", "end");
+		item.setShortArray("shorts", new short[]{1, -1, Short.MIN_VALUE});
+		item.setFloat("float", 1.5f);
+		item.setDouble("double", -0.25);
+		item.setByte("byte", (byte) -3);
+		item.setShort("short", (short) 300);
+		item.setLong("long", Long.MIN_VALUE);
+		item.setIntArray("ints", new int[0]);
+		return item;
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	public void readsCompoundsKeyByKey(boolean compact) throws IOException {
+		CompoundItem item = sample();
+		ByteBuffer buffer = encode(item, compact);
+		PdsReader reader = new PdsReader(buffer);
+
+		reader.beginCompound();
+		int keys = 0;
+		String key;
+		while ((key = reader.nextKey()) != null) {
+			keys++;
+			switch (key) {
+				case "marker" -> assertEquals(-12345, reader.readInt());
+				case "after" -> assertEquals("end", reader.readString());
+				case "shorts" -> assertArrayEquals(item.getShortArray("shorts"), reader.readShortArray());
+				case "float" -> assertEquals(1.5f, reader.readFloat());
+				case "double" -> assertEquals(-0.25, reader.readDouble());
+				case "byte" -> assertEquals((byte) -3, reader.readByte());
+				case "short" -> assertEquals((short) 300, reader.readShort());
+				case "long" -> assertEquals(Long.MIN_VALUE, reader.readLong());
+				case "ints" -> assertArrayEquals(new int[0], reader.readIntArray());
+				default -> reader.skip();
+			}
+		}
+		assertEquals(item.map.size(), keys);
+		assertFalse(buffer.hasRemaining());
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	public void skipsNestedCompoundsAndLists(boolean compact) throws IOException {
+		ListItem list = new ListItem(sample(), nested(), new ListItem(nested(), new ListItem()), new IntItem(7));
+		ByteBuffer buffer = encode(list, compact);
+		PdsReader reader = new PdsReader(buffer);
+
+		assertEquals(4, reader.beginList());
+		reader.skip();
+		reader.skip();
+		reader.skip();
+		assertEquals(7, reader.readInt());
+		assertFalse(buffer.hasRemaining());
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	public void endCompoundSkipsTheRest(boolean compact) throws IOException {
+		ListItem list = new ListItem(sample(), new StringItem("next"));
+		ByteBuffer buffer = encode(list, compact);
+		PdsReader reader = new PdsReader(buffer);
+
+		assertEquals(2, reader.beginList());
+		reader.beginCompound();
+		reader.nextKey();
+		reader.skip();
+		reader.endCompound();
+		assertEquals("next", reader.readString());
+		assertFalse(buffer.hasRemaining());
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	public void readItemMatchesTree(boolean compact) throws IOException {
+		CompoundItem item = sample();
+		assertItemEquals(item, new PdsReader(encode(item, compact)).readItem());
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	public void readArraySliceLeavesReaderAfterArray(boolean compact) throws IOException {
+		ListItem list = new ListItem(new IntArrayItem(new int[]{5, -6, 7}), new ByteItem(1));
+		PdsReader reader = new PdsReader(encode(list, compact));
+
+		assertEquals(2, reader.beginList());
+		ByteBuffer slice = reader.readArraySlice(IntArrayItem.TYPE);
+		assertEquals(12, slice.remaining());
+		assertEquals(-6, slice.getInt(4));
+		assertEquals(1, reader.readByte());
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	public void wrongTypeThrows(boolean compact) throws IOException {
+		PdsReader reader = new PdsReader(encode(new IntItem(1), compact));
+		assertThrows(IOException.class, reader::readLong);
+	}
+
+	// Every prefix of valid data must fail with an IOException rather than a BufferUnderflowException.
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	public void truncatedInputThrowsIOException(boolean compact) throws IOException {
+		ByteBuffer full = encode(sample(), compact);
+		for (int length = 0; length < full.limit(); length++) {
+			ByteBuffer truncated = full.duplicate().limit(length);
+			assertThrows(IOException.class, () -> new PdsReader(truncated.duplicate()).readItem(), "length " + length);
+			assertThrows(IOException.class, () -> new PdsReader(truncated.duplicate()).skip(), "length " + length);
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package io.bluestaggo.pds;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static io.bluestaggo.pds.ItemAssertions.assertItemEquals;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PdsViewTest {
+	// Each test runs on both the version 1 layout and the compact one.
+	private static ByteBuffer encode(StructureItem item, boolean compact) {
+		if (compact) {
+			CompactEncoder encoder = new CompactEncoder(item);
+			ByteBuffer buffer = ByteBuffer.allocate(encoder.getEncodedSize());
+			encoder.write(buffer);
+			return buffer.flip();
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(item.getEncodedSize());
+		item.writeItem(buffer);
+		return buffer.flip();
+	}
+
+	private static CompoundItem sample() {
+		CompoundItem palette = new CompoundItem();
+		palette.setString("namespace", "vt");
+		palette.setString("name", "stone");
+
+		CompoundItem inner = new CompoundItem();
+		inner.setInt("count", 3);
+		inner.setByteArray("bytes", new byte[]{1, 2, 3});
+		inner.map.put("deeper", new CompoundItem());
+
+		CompoundItem item = new CompoundItem();
+		item.setByte("byte", (byte) -1);
+		item.setBoolean("flag", true);
+		item.setShort("short", Short.MIN_VALUE);
+		item.setInt("int", -7);
+		item.setLong("long", Long.MAX_VALUE);
+		item.setFloat("float", -2.5f);
+		item.setDouble("double", 1e300);
+		item.setString("string", "h\u00e9llo");
+		item.setByteArray("bytes", new byte[]{-128, 0, 127});
+		item.setShortArray("shorts", new short[]{-1, 2});
+		item.setIntArray("ints", new int[]{Integer.MIN_VALUE, 0, Integer.MAX_VALUE});
+		item.setLongArray("longs", new long[0]);
+		item.map.put("palette", new ListItem(palette, palette));
+		item.map.put("inner", inner);
+		return item;
+	}
+
+	private static byte[] bytes(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	// Reads every value through the view and compares it with the tree it was encoded from.
+	private static void assertViewEquals(CompoundItem expected, PdsView view) throws IOException {
+		assertEquals(expected.map.keySet(), view.keySet());
+		for (var entry : expected.map.entrySet()) {
+			String key = entry.getKey();
+			StructureItem value = entry.getValue();
+			assertEquals(value.getType(), view.getType(key), key);
+
+			switch (value.getType()) {
+				case ByteItem.TYPE -> assertEquals(value.getByte(), view.getByte(key), key);
+				case ShortItem.TYPE -> assertEquals(value.getShort(), view.getShort(key), key);
+				case IntItem.TYPE -> assertEquals(value.getInt(), view.getInt(key), key);
+				case LongItem.TYPE -> assertEquals(value.getLong(), view.getLong(key), key);
+				case FloatItem.TYPE -> assertEquals(value.getFloat(), view.getFloat(key), key);
+				case DoubleItem.TYPE -> assertEquals(value.getDouble(), view.getDouble(key), key);
+				case StringItem.TYPE -> assertEquals(value.getString(), view.getString(key), key);
+				case ByteArrayItem.TYPE -> assertArrayEquals(value.getByteArray(), bytes(view.getByteArray(key)), key);
+				case ShortArrayItem.TYPE -> {
+					short[] values = new short[view.getShortArray(key).remaining()];
+					view.getShortArray(key).get(values);
+					assertArrayEquals(value.getShortArray(), values, key);
+				}
+				case IntArrayItem.TYPE -> {
+					int[] values = new int[view.getIntArray(key).remaining()];
+					view.getIntArray(key).get(values);
+					assertArrayEquals(value.getIntArray(), values, key);
+				}
+				case LongArrayItem.TYPE -> {
+					long[] values = new long[view.getLongArray(key).remaining()];
+					view.getLongArray(key).get(values);
+					assertArrayEquals(value.getLongArray(), values, key);
+				}
+				case CompoundItem.TYPE -> assertViewEquals((CompoundItem) value, view.getCompound(key));
+				default -> assertItemEquals(value, view.getReader(key).readItem());
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	public void viewMatchesTree(boolean compact) throws IOException {
+		CompoundItem item = sample();
+		ByteBuffer buffer = encode(item, compact);
+		PdsView view = new PdsView(buffer);
+		assertFalse(buffer.hasRemaining());
+		assertViewEquals(item, view);
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	public void arraysAreReadOnly(boolean compact) throws IOException {
+		PdsView view = new PdsView(encode(sample(), compact));
+		assertTrue(view.getByteArray("bytes").isReadOnly());
+	}
+
+	// Chunk.deserialize(PdsView) relies on this to treat missing flags as their old default.
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	public void missingKey(boolean compact) throws IOException {
+		PdsView view = new PdsView(encode(sample(), compact));
+		assertFalse(view.containsKey("missing"));
+		assertEquals(0, view.getType("missing"));
+		assertThrows(IOException.class, () -> view.getBoolean("missing"));
+		assertThrows(IOException.class, () -> view.getCompound("missing"));
+		assertThrows(IOException.class, () -> view.getReader("missing"));
+		assertTrue(!view.containsKey("missing") || view.getBoolean("missing"));
+		assertTrue(view.containsKey("flag") && view.getBoolean("flag"));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	public void wrongTypeThrows(boolean compact) throws IOException {
+		PdsView view = new PdsView(encode(sample(), compact));
+		assertThrows(IOException.class, () -> view.getLong("int"));
+		assertThrows(IOException.class, () -> view.getIntArray("bytes"));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	public void mapReadsFile(boolean compact, @TempDir Path dir) throws IOException {
+		CompoundItem item = sample();
+		Path path = dir.resolve("item.pds");
+		Files.write(path, bytes(encode(item, compact)));
+		assertViewEquals(item, PdsView.map(path));
+	}
+}
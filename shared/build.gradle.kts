@@ -3,20 +3,60 @@ plugins {
 }
 
 val jomlVersion = "1.10.5"
+val jmhVersion = "1.37"
 
 repositories {
     mavenCentral()
 }
 
+// Benchmarks live in src/jmh and are run with the jmh task, e.g.
+//   ./gradlew :shared:jmh -Pjmh.args="SaveBenchmark -f 1"
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[jmh.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+
 dependencies {
 	implementation("org.joml:joml:${jomlVersion}")
 
     testImplementation(platform("org.junit:junit-bom:5.9.1"))
     testImplementation("org.junit.jupiter:junit-jupiter")
 
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:${jmhVersion}")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:${jmhVersion}")
+
     implementation(project(":pds"))
 }
 
 tasks.test {
-    useJUnitPlatform()
-}
\ No newline at end of file
+    useJUnitPlatform {
+        excludeTags("allocation")
+    }
+}
+
+// Allocation tests run on their own, without escape analysis, so they also catch allocations the
+// JIT happens to remove while the rest of the tests run on a normal JVM.
+val allocationTest by tasks.registering(Test::class) {
+    group = "verification"
+    description = "Runs the tests tagged \"allocation\" with escape analysis turned off."
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("allocation")
+    }
+    jvmArgs("-XX:-DoEscapeAnalysis")
+}
+
+tasks.check {
+    dependsOn(allocationTest)
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the JMH benchmarks in src/jmh."
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args((findProperty("jmh.args") as String?)?.split(" ") ?: listOf<String>())
+}
@@ -0,0 +1,78 @@
+package io.bluestaggo.voxelthing.math;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Octave noise over a chunk's worth of samples, one call per sample against the grid functions.
+// The 2D grid is a chunk's heightmap and the 3D grid a chunk's cave lattice, as GenerationInfo
+// samples them. Scores are per sample.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoiseBenchmark {
+	private static final long SEED = 1234;
+	private static final int LENGTH_2D = 32;
+	private static final int LENGTH_3D = 8;
+	private static final int STEP_3D = 4;
+	private static final double SCALE = 300.0;
+	private static final double SCALE_Y = 50.0;
+
+	@Param({"1", "6"})
+	public int octaves;
+
+	private final float[] out2 = new float[LENGTH_2D * LENGTH_2D];
+	private final float[] out3 = new float[LENGTH_3D * LENGTH_3D * LENGTH_3D];
+	private int x0;
+
+	// Moves to a new chunk each call, so no two calls sample the same place.
+	private int nextOrigin() {
+		x0 += LENGTH_2D;
+		return x0;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LENGTH_2D * LENGTH_2D)
+	public float[] point2() {
+		int x0 = nextOrigin();
+		for (int j = 0; j < LENGTH_2D; j++) {
+			for (int i = 0; i < LENGTH_2D; i++) {
+				out2[i + j * LENGTH_2D] = OpenSimplex2Octaves.noise2(SEED, octaves, (x0 + i) / SCALE, j / SCALE);
+			}
+		}
+		return out2;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LENGTH_2D * LENGTH_2D)
+	public float[] grid2() {
+		OpenSimplex2Octaves.noise2Grid(SEED, octaves, nextOrigin(), 0, 1, SCALE, LENGTH_2D, LENGTH_2D, out2);
+		return out2;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LENGTH_3D * LENGTH_3D * LENGTH_3D)
+	public float[] point3() {
+		int x0 = nextOrigin();
+		for (int i = 0; i < LENGTH_3D; i++) {
+			for (int j = 0; j < LENGTH_3D; j++) {
+				for (int k = 0; k < LENGTH_3D; k++) {
+					out3[(i * LENGTH_3D + j) * LENGTH_3D + k] = OpenSimplex2Octaves.noise3_ImproveXZ(SEED, octaves,
+							(x0 + i * STEP_3D) / SCALE, j * STEP_3D / SCALE_Y, k * STEP_3D / SCALE);
+				}
+			}
+		}
+		return out3;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LENGTH_3D * LENGTH_3D * LENGTH_3D)
+	public float[] grid3() {
+		OpenSimplex2Octaves.noise3Grid_ImproveXZ(SEED, octaves, nextOrigin(), 0, 0, STEP_3D, SCALE, SCALE_Y,
+				LENGTH_3D, LENGTH_3D, LENGTH_3D, out3);
+		return out3;
+	}
+}
@@ -0,0 +1,46 @@
+package io.bluestaggo.voxelthing.world;
+
+import io.bluestaggo.voxelthing.world.block.Block;
+import io.bluestaggo.voxelthing.world.storage.ShortBlockStorage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// setBlock against palettes of different sizes. The storage is a ShortBlockStorage in every case,
+// so only the palette lookup differs, and the time per write should stay the same.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaletteBenchmark {
+	@Param({"2", "16", "128"})
+	public int paletteSize;
+
+	private BlockStorage storage;
+	private Block[] blocks;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		blocks = new Block[paletteSize];
+		for (int i = 0; i < paletteSize; i++) {
+			blocks[i] = Block.REGISTERED_BLOCKS_ORDERED.get(i);
+		}
+
+		// Every block appears many times, so writes never free or claim a palette slot.
+		storage = new ShortBlockStorage();
+		for (int i = 0; i < Chunk.VOLUME; i++) {
+			storage.setBlock(i >> Chunk.SIZE_POW2 * 2, i >> Chunk.SIZE_POW2 & Chunk.LENGTH_MASK, i & Chunk.LENGTH_MASK,
+					blocks[i % paletteSize]);
+		}
+	}
+
+	@Benchmark
+	public void setBlock() {
+		int i = next++ & Chunk.VOLUME - 1;
+		storage.setBlock(i >> Chunk.SIZE_POW2 * 2, i >> Chunk.SIZE_POW2 & Chunk.LENGTH_MASK, i & Chunk.LENGTH_MASK,
+				blocks[(i + 1) % paletteSize]);
+	}
+}
@@ -0,0 +1,27 @@
+package io.bluestaggo.voxelthing.world.generation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Biome and tree maps of one chunk column, with biomes sampled every block and at reduced resolution.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BiomeBenchmark {
+	@Param({"0", "2"})
+	public int resolutionPow2;
+
+	private int chunkX;
+
+	@Benchmark
+	public GenerationInfo biomesAndTrees() {
+		GenerationInfo info = new GenerationInfo(1234, chunkX++, 0, WorldType.Normal);
+		info.biomeGen(resolutionPow2);
+		info.treeGen();
+		return info;
+	}
+}
@@ -0,0 +1,89 @@
+package io.bluestaggo.voxelthing.world.storage;
+
+import io.bluestaggo.pds.CompoundItem;
+import io.bluestaggo.voxelthing.world.World;
+import io.bluestaggo.voxelthing.world.WorldInfo;
+import io.bluestaggo.voxelthing.world.generation.ChunkGenerator;
+import io.bluestaggo.voxelthing.world.generation.WorldType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Saves and loads generated chunks through the folder and region layouts. File counts are
+// checked by RegionSaveHandlerTest.usesOneFilePerRegion.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveBenchmark {
+	private static final int LENGTH = 8;
+	private static final int HEIGHT = 4;
+	private static final int COUNT = LENGTH * HEIGHT * LENGTH;
+
+	@Param({"folder", "region"})
+	public String layout;
+
+	private Path root;
+	private ISaveHandler handler;
+	private final CompoundItem[] chunks = new CompoundItem[COUNT];
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		WorldInfo info = new WorldInfo();
+		info.seed = 1234;
+		World world = new World(null, info, WorldType.Normal);
+		ChunkGenerator generator = new ChunkGenerator(world);
+		for (int i = 0; i < COUNT; i++) {
+			chunks[i] = generator.generate(chunkX(i), chunkY(i), chunkZ(i)).serialize();
+		}
+		world.close();
+
+		root = Files.createTempDirectory("save-benchmark");
+		handler = layout.equals("folder") ? new FolderSaveHandler(root) : new RegionSaveHandler(root);
+		for (int i = 0; i < COUNT; i++) {
+			handler.saveChunkData(chunkX(i), chunkY(i), chunkZ(i), chunks[i]);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		handler.close();
+		try (Stream<Path> stream = Files.walk(root)) {
+			for (Path path : (Iterable<Path>) stream.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	private static int chunkX(int i) {
+		return i % LENGTH - LENGTH / 2;
+	}
+
+	private static int chunkY(int i) {
+		return i / LENGTH % HEIGHT - 1;
+	}
+
+	private static int chunkZ(int i) {
+		return i / (LENGTH * HEIGHT) - LENGTH / 2;
+	}
+
+	@Benchmark
+	public void save() {
+		int i = next++ % COUNT;
+		handler.saveChunkData(chunkX(i), chunkY(i), chunkZ(i), chunks[i]);
+	}
+
+	@Benchmark
+	public CompoundItem load() {
+		int i = next++ % COUNT;
+		return handler.loadChunkData(chunkX(i), chunkY(i), chunkZ(i));
+	}
+}
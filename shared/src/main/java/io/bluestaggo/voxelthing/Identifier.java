@@ -1,9 +1,11 @@
 package io.bluestaggo.voxelthing;
 
 import io.bluestaggo.pds.CompoundItem;
+import io.bluestaggo.pds.PdsReader;
 import io.bluestaggo.pds.StringItem;
 import io.bluestaggo.pds.StructureItem;
 
+import java.io.IOException;
 import java.util.Objects;
 
 public class Identifier {
@@ -57,4 +59,24 @@ public class Identifier {
 		String name = item.getMap().get("name").getString();
 		return new Identifier(namespace, name);
 	}
+
+	public static Identifier read(PdsReader reader) throws IOException {
+		String namespace = null;
+		String name = null;
+
+		reader.beginCompound();
+		String key;
+		while ((key = reader.nextKey()) != null) {
+			switch (key) {
+				case "namespace" -> namespace = reader.readString();
+				case "name" -> name = reader.readString();
+				default -> reader.skip();
+			}
+		}
+
+		if (namespace == null || name == null) {
+			throw new IOException("Identifier is missing its namespace or name");
+		}
+		return new Identifier(namespace, name);
+	}
 }
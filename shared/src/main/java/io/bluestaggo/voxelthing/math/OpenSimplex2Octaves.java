@@ -1,57 +1,87 @@
 package io.bluestaggo.voxelthing.math;
 
 public class OpenSimplex2Octaves {
-	private interface FreqNoiseFunction {
-		float get(long seed, double freq, double... coords);
-	}
+	// Each octave has twice the frequency and half the amplitude of the one before.
+	// Past this many octaves the amplitudes no longer make a difference.
+	public static final int MAX_OCTAVES = 32;
 
-	@FunctionalInterface
-	private interface NoiseFunction2 extends FreqNoiseFunction {
-		float get2(long seed, double x, double y);
+	private static final double[] FREQUENCIES = new double[MAX_OCTAVES];
+	private static final double[] AMPLITUDES = new double[MAX_OCTAVES];
+	// Sum of the amplitudes of the first n octaves, at index n.
+	private static final float[] AMPLITUDE_SUMS = new float[MAX_OCTAVES + 1];
 
-		default float get(long seed, double freq, double... coords) {
-			return get2(seed, coords[0] * freq, coords[1] * freq);
+	static {
+		float maxAmp = 0.0F;
+		double amp = 1.0D;
+		double freq = 1;
+		for (int i = 0; i < MAX_OCTAVES; i++) {
+			FREQUENCIES[i] = freq;
+			AMPLITUDES[i] = amp;
+			maxAmp += amp;
+			AMPLITUDE_SUMS[i + 1] = maxAmp;
+			amp /= 2.0D;
+			freq *= 2.0D;
 		}
 	}
 
-	@FunctionalInterface
-	private interface NoiseFunction3 extends FreqNoiseFunction {
-		float get3(long seed, double x, double y, double z);
-
-		default float get(long seed, double freq, double... coords) {
-			return get3(seed, coords[0] * freq, coords[1] * freq, coords[2] * freq);
+	public static float noise2(long seed, int octaves, double x, double y) {
+		float value = 0;
+		for (int i = 0; i < octaves; i++) {
+			double freq = FREQUENCIES[i];
+			value += OpenSimplex2.noise2(seed, x * freq, y * freq) * AMPLITUDES[i];
 		}
+		return value / AMPLITUDE_SUMS[octaves];
 	}
 
-	@FunctionalInterface
-	private interface OctaveFunction {
-		float get(long seed, int octaves, double... coords);
+	public static float noise3_ImproveXZ(long seed, int octaves, double x, double y, double z) {
+		float value = 0;
+		for (int i = 0; i < octaves; i++) {
+			double freq = FREQUENCIES[i];
+			value += OpenSimplex2.noise3_ImproveXZ(seed, x * freq, y * freq, z * freq) * AMPLITUDES[i];
+		}
+		return value / AMPLITUDE_SUMS[octaves];
+	}
 
-		static OctaveFunction from(FreqNoiseFunction n) {
-			return ((seed, octaves, coords) -> {
-				float maxAmp = 0.0F;
-				double amp = 1.0D;
-				double freq = 1;
+	// Evaluates noise2 over an nx by ny grid at x = (x0 + i * step) / scale, y = (y0 + j * step) / scale,
+	// writing sample i, j to out[i + j * nx]. Gives exactly the values noise2 would for each sample.
+	public static void noise2Grid(long seed, int octaves, int x0, int y0, int step, double scale,
+	                              int nx, int ny, float[] out) {
+		float maxAmp = AMPLITUDE_SUMS[octaves];
+		for (int j = 0; j < ny; j++) {
+			double y = (y0 + j * step) / scale;
+			int row = j * nx;
+			for (int i = 0; i < nx; i++) {
+				double x = (x0 + i * step) / scale;
 				float value = 0;
-				for (int i = 0; i < octaves; i++) {
-					value += n.get(seed, freq, coords) * amp;
-					maxAmp += amp;
-					amp /= 2.0D;
-					freq *= 2.0D;
+				for (int o = 0; o < octaves; o++) {
+					double freq = FREQUENCIES[o];
+					value += OpenSimplex2.noise2(seed, x * freq, y * freq) * AMPLITUDES[o];
 				}
-				return value / maxAmp;
-			});
+				out[row + i] = value / maxAmp;
+			}
 		}
 	}
 
-	private static final OctaveFunction OCTAVES_NOISE_2 = OctaveFunction.from((NoiseFunction2) OpenSimplex2::noise2);
-	private static final OctaveFunction OCTAVES_NOISE_3_XZ = OctaveFunction.from((NoiseFunction3) OpenSimplex2::noise3_ImproveXZ);
-
-	public static float noise2(long seed, int octaves, double x, double y) {
-		return OCTAVES_NOISE_2.get(seed, octaves, x, y);
-	}
-
-	public static float noise3_ImproveXZ(long seed, int octaves, double x, double y, double z) {
-		return OCTAVES_NOISE_3_XZ.get(seed, octaves, x, y, z);
+	// Evaluates noise3_ImproveXZ over an nx by ny by nz grid, with x and z scaled by scaleXZ and
+	// y by scaleY, writing sample i, j, k to out[(i * ny + j) * nz + k].
+	public static void noise3Grid_ImproveXZ(long seed, int octaves, int x0, int y0, int z0, int step,
+	                                        double scaleXZ, double scaleY, int nx, int ny, int nz, float[] out) {
+		float maxAmp = AMPLITUDE_SUMS[octaves];
+		for (int i = 0; i < nx; i++) {
+			double x = (x0 + i * step) / scaleXZ;
+			for (int j = 0; j < ny; j++) {
+				double y = (y0 + j * step) / scaleY;
+				int row = (i * ny + j) * nz;
+				for (int k = 0; k < nz; k++) {
+					double z = (z0 + k * step) / scaleXZ;
+					float value = 0;
+					for (int o = 0; o < octaves; o++) {
+						double freq = FREQUENCIES[o];
+						value += OpenSimplex2.noise3_ImproveXZ(seed, x * freq, y * freq, z * freq) * AMPLITUDES[o];
+					}
+					out[row + k] = value / maxAmp;
+				}
+			}
+		}
 	}
 }
@@ -52,6 +52,11 @@ public class IntList {
 		return data[index];
 	}
 
+	public int removeLast() {
+		Objects.checkIndex(size - 1, size);
+		return data[--size];
+	}
+
 	public void clear() {
 		data = new int[DEFAULT_CAPACITY];
 		size = 0;
@@ -5,9 +5,14 @@ import io.bluestaggo.voxelthing.world.block.Block;
 import io.bluestaggo.voxelthing.world.storage.ByteBlockStorage;
 import io.bluestaggo.voxelthing.world.storage.EmptyBlockStorage;
 import io.bluestaggo.voxelthing.world.storage.NibbleBlockStorage;
+import io.bluestaggo.voxelthing.world.storage.PackedBlockStorage;
 import io.bluestaggo.voxelthing.world.storage.ShortBlockStorage;
+import io.bluestaggo.voxelthing.world.storage.UniformBlockStorage;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -16,11 +21,16 @@ public abstract class BlockStorage {
 			EmptyBlockStorage.class,
 			NibbleBlockStorage.class,
 			ByteBlockStorage.class,
-			ShortBlockStorage.class
+			ShortBlockStorage.class,
+			PackedBlockStorage.class,
+			UniformBlockStorage.class
 	);
 
 	private final List<Block> mutablePalette;
 	private final IntList blockCounts = new IntList();
+	// Palette index of each block by runtime id, or 0 if the block isn't in the palette.
+	private int[] paletteIndices = new int[Block.REGISTERED_BLOCKS_ORDERED.size() + 1];
+	private final IntList freeSlots = new IntList();
 	public final List<Block> palette;
 
 	public BlockStorage() {
@@ -29,6 +39,11 @@ public abstract class BlockStorage {
 
 	public BlockStorage(BlockStorage storage) {
 		this(storage.mutablePalette);
+
+		for (int i = 0; i < storage.blockCounts.size(); i++) {
+			blockCounts.set(i, storage.blockCounts.get(i));
+		}
+		updatePaletteIndices();
 	}
 
 	public BlockStorage(List<Block> palette) {
@@ -42,6 +57,38 @@ public abstract class BlockStorage {
 		for (int i = 0; i < palette.size(); i++) {
 			blockCounts.set(i, 0);
 		}
+		updatePaletteIndices();
+	}
+
+	private void updatePaletteIndices() {
+		Arrays.fill(paletteIndices, 0);
+		freeSlots.clear();
+
+		for (int i = mutablePalette.size() - 1; i > 0; i--) {
+			Block block = mutablePalette.get(i);
+			if (block != null) {
+				setPaletteIndex(block, i);
+			} else if (blockCounts.get(i) <= 0) {
+				freeSlots.add(i);
+			}
+		}
+	}
+
+	private void setPaletteIndex(Block block, int index) {
+		if (block.runtimeId >= paletteIndices.length) {
+			paletteIndices = Arrays.copyOf(paletteIndices, Math.max(block.runtimeId + 1, paletteIndices.length * 2));
+		}
+		paletteIndices[block.runtimeId] = index;
+	}
+
+	private int indexOf(Block block) {
+		if (block == null) {
+			return 0;
+		}
+		if (block.runtimeId >= paletteIndices.length || paletteIndices[block.runtimeId] == 0) {
+			return -1;
+		}
+		return paletteIndices[block.runtimeId];
 	}
 
 	protected abstract int getBlockId(int x, int y, int z);
@@ -53,49 +100,164 @@ public abstract class BlockStorage {
 	protected abstract void setBlockId(int x, int y, int z, int id);
 
 	public void setBlock(int x, int y, int z, Block block) {
-		int index = mutablePalette.indexOf(block);
-		if (index == -1) {
-			if (needsExpansion(block)) {
-				throw new OutOfMemoryError("Cannot add \"" + block + "\" to palette: ran out of " + getMaxPaletteSize() + "spaces!");
+		int index = paletteIndexFor(block);
+		int oldId = getBlockId(x, y, z);
+		if (index != oldId) {
+			setBlockId(x, y, z, index);
+			blockCounts.set(index, blockCounts.get(index) + 1);
+			removeBlockId(oldId);
+		}
+	}
+
+	// Sets a span of one column from minY to maxY inclusive, only touching the palette once.
+	public void fillColumn(int x, int z, int minY, int maxY, Block block) {
+		if (minY > maxY) {
+			return;
+		}
+
+		int index = paletteIndexFor(block);
+		int count = 0;
+		for (int y = minY; y <= maxY; y++) {
+			int oldId = getBlockId(x, y, z);
+			if (index != oldId) {
+				setBlockId(x, y, z, index);
+				count++;
+				removeBlockId(oldId);
 			}
+		}
+		blockCounts.set(index, blockCounts.get(index) + count);
+	}
+
+	// Sets a run of length blocks along z starting at x, y, z, which is contiguous in storage.
+	public void fillRun(int x, int y, int z, int length, Block block) {
+		if (length <= 0) {
+			return;
+		}
 
-			index = mutablePalette.lastIndexOf(null);
-			if (index <= 0) {
-				index = mutablePalette.size();
-				mutablePalette.add(block);
-				blockCounts.add(0);
-			} else {
-				mutablePalette.set(index, block);
-				blockCounts.set(index, 0);
+		int index = paletteIndexFor(block);
+		int count = 0;
+		for (int zz = z; zz < z + length; zz++) {
+			int oldId = getBlockId(x, y, zz);
+			if (index != oldId) {
+				setBlockId(x, y, zz, index);
+				count++;
+				removeBlockId(oldId);
 			}
 		}
+		blockCounts.set(index, blockCounts.get(index) + count);
+	}
 
-		int oldId = getBlockId(x, y, z);
-		if (index != oldId) {
-			setBlockId(x, y, z, index);
-			blockCounts.set(index, blockCounts.get(index) + 1);
+	private int paletteIndexFor(Block block) {
+		int index = indexOf(block);
+		if (index != -1) {
+			return index;
+		}
 
-			if (oldId > 0) {
-				blockCounts.set(oldId, blockCounts.get(oldId) - 1);
-				if (blockCounts.get(oldId) <= 0) {
-					mutablePalette.set(oldId, null);
-				}
+		if (needsExpansion(block)) {
+			throw new OutOfMemoryError("Cannot add \"" + block + "\" to palette: ran out of " + getMaxPaletteSize() + "spaces!");
+		}
+
+		if (freeSlots.size() == 0) {
+			index = mutablePalette.size();
+			mutablePalette.add(block);
+			blockCounts.add(0);
+		} else {
+			index = freeSlots.removeLast();
+			mutablePalette.set(index, block);
+			blockCounts.set(index, 0);
+		}
+		setPaletteIndex(block, index);
+		return index;
+	}
+
+	// Drops one use of a palette index, freeing its slot once nothing uses it.
+	private void removeBlockId(int id) {
+		if (id <= 0) {
+			return;
+		}
+
+		blockCounts.set(id, blockCounts.get(id) - 1);
+		if (blockCounts.get(id) <= 0) {
+			Block oldBlock = mutablePalette.get(id);
+			if (oldBlock != null && paletteIndices[oldBlock.runtimeId] == id) {
+				paletteIndices[oldBlock.runtimeId] = 0;
 			}
+			mutablePalette.set(id, null);
+			freeSlots.add(id);
 		}
 	}
 
 	protected abstract int getMaxPaletteSize();
 
+	protected void setBlockCount(int index, int count) {
+		blockCounts.set(index, count);
+	}
+
 	public boolean needsExpansion(Block block) {
-		return mutablePalette.size() >= getMaxPaletteSize() && !mutablePalette.contains(block);
+		return mutablePalette.size() >= getMaxPaletteSize() && freeSlots.size() == 0 && indexOf(block) == -1;
 	}
 
 	public BlockStorage expand() {
 		throw new OutOfMemoryError("Cannot expand to larger block storage!");
 	}
 
+	// Returns a storage holding the same blocks, with unused palette entries dropped and the
+	// smallest width the remaining palette allows, or a uniform storage if only one block is left. May return this storage if nothing changes.
+	public BlockStorage compact() {
+		if (isEmpty()) {
+			return this instanceof EmptyBlockStorage ? this : new EmptyBlockStorage();
+		}
+
+		List<Block> newPalette = new ArrayList<>();
+		newPalette.add(null);
+		int[] newIds = new int[mutablePalette.size()];
+		int solidCount = 0;
+		for (int i = 1; i < mutablePalette.size(); i++) {
+			if (mutablePalette.get(i) != null && blockCounts.get(i) > 0) {
+				newIds[i] = newPalette.size();
+				newPalette.add(mutablePalette.get(i));
+				solidCount += blockCounts.get(i);
+			}
+		}
+
+		if (newPalette.size() == 2 && solidCount == Chunk.VOLUME) {
+			return this instanceof UniformBlockStorage ? this : new UniformBlockStorage(newPalette.get(1));
+		}
+
+		int bits = PackedBlockStorage.bitsFor(newPalette.size());
+		if (this instanceof PackedBlockStorage packed && packed.getBits() == bits
+				&& newPalette.size() == mutablePalette.size()) {
+			return this;
+		}
+
+		BlockStorage storage = new PackedBlockStorage(newPalette, bits);
+		for (int x = 0; x < Chunk.LENGTH; x++) {
+			for (int y = 0; y < Chunk.LENGTH; y++) {
+				for (int z = 0; z < Chunk.LENGTH; z++) {
+					storage.setBlockId(x, y, z, newIds[getBlockId(x, y, z)]);
+				}
+			}
+		}
+		storage.updateBlockCounts();
+		return storage;
+	}
+
+	// Copies the palette indices of a storage sharing this storage's palette.
+	protected void copyBlockIds(BlockStorage storage) {
+		for (int x = 0; x < Chunk.LENGTH; x++) {
+			for (int y = 0; y < Chunk.LENGTH; y++) {
+				for (int z = 0; z < Chunk.LENGTH; z++) {
+					setBlockId(x, y, z, storage.getBlockId(x, y, z));
+				}
+			}
+		}
+	}
+
 	public abstract byte[] getBytes();
 
+	// Bytes taken up by the block data, not counting the palette.
+	public abstract int getMemoryUsage();
+
 	public byte getType() {
 		return (byte) REGISTERED_TYPES.indexOf(getClass());
 	}
@@ -115,6 +277,7 @@ public abstract class BlockStorage {
 				}
 			}
 		}
+		updatePaletteIndices();
 	}
 
 	public boolean isEmpty() {
@@ -127,14 +290,25 @@ public abstract class BlockStorage {
 		return true;
 	}
 
-	public static BlockStorage decode(byte type, List<Block> palette, byte[] bytes) {
+	// Storages copy or unpack what they need from the bytes, which may be a slice of a larger
+	// buffer that gets reused. Data that doesn't make sense for its storage type is reported as an
+	// IOException, like any other unreadable chunk.
+	public static BlockStorage decode(byte type, List<Block> palette, ByteBuffer bytes) throws IOException {
+		if (type < 0 || type >= REGISTERED_TYPES.size()) {
+			throw new IOException("Unknown block storage type " + type);
+		}
+
 		try {
-			return REGISTERED_TYPES.get(type).getDeclaredConstructor(List.class, byte[].class).newInstance(palette, bytes);
+			return REGISTERED_TYPES.get(type).getDeclaredConstructor(List.class, ByteBuffer.class).newInstance(palette, bytes);
+		} catch (java.lang.reflect.InvocationTargetException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+			throw new IOException("Corrupt block data", e.getCause());
 		} catch (NoSuchMethodException
 				| InstantiationException
 				| IllegalAccessException
-				| IllegalArgumentException
-				| java.lang.reflect.InvocationTargetException e) {
+				| IllegalArgumentException e) {
 			e.printStackTrace();
 			return new ByteBlockStorage(palette, bytes);
 		}
@@ -2,15 +2,24 @@ package io.bluestaggo.voxelthing.world;
 
 import io.bluestaggo.pds.CompoundItem;
 import io.bluestaggo.pds.ListItem;
+import io.bluestaggo.pds.PdsReader;
+import io.bluestaggo.pds.PdsView;
 import io.bluestaggo.voxelthing.Identifier;
 import io.bluestaggo.voxelthing.world.block.Block;
+import io.bluestaggo.voxelthing.world.generation.ChunkGenerator;
 import io.bluestaggo.voxelthing.world.storage.EmptyBlockStorage;
+import io.bluestaggo.voxelthing.world.storage.UniformBlockStorage;
 import io.bluestaggo.voxelthing.world.generation.blockInStructure;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.StampedLock;
 import java.util.stream.Collectors;
 
+// Blocks can be read from any thread. Reads are optimistic and only take the read lock if
+// they overlap with a write; writes take the write lock.
 public class Chunk implements IBlockAccess {
 	public static final int SIZE_POW2 = 5;
 	public static final int LENGTH = 1 << SIZE_POW2;
@@ -21,9 +30,15 @@ public class Chunk implements IBlockAccess {
 	public final World world;
 	public final int x, y, z;
 
+	private final StampedLock lock = new StampedLock();
 	private BlockStorage blockStorage;
-	private boolean empty;
-	private boolean hasChanged;
+	private volatile boolean empty;
+	private volatile boolean hasChanged;
+	// Generated chunks start out undecorated, see World.decorateAround().
+	private volatile boolean decorated = true;
+	// Set by ChunkStorage whenever the chunk is looked up, to find the least recently used chunks.
+	// Written from any thread without synchronization, since it is only a hint.
+	public long lastAccessTick;
 
 	public Chunk(World world, int x, int y, int z) {
 		this(world, x, y, z, new EmptyBlockStorage());
@@ -56,14 +71,54 @@ public class Chunk implements IBlockAccess {
 			return this.world.getBlock(toGlobalX(x), toGlobalY(y), toGlobalZ(z));
 		}
 
-		return blockStorage.getBlock(x, y, z);
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				Block block = blockStorage.getBlock(x, y, z);
+				if (lock.validate(stamp)) {
+					return block;
+				}
+			} catch (RuntimeException ignored) {
+				// the storage was read halfway through a write, read it again under the lock
+			}
+		}
+
+		stamp = lock.readLock();
+		try {
+			return blockStorage.getBlock(x, y, z);
+		} finally {
+			lock.unlockRead(stamp);
+		}
 	}
 
 	public void setBlock(int x, int y, int z, Block block) {
-		if (blockStorage.needsExpansion(block)) {
-			blockStorage = blockStorage.expand();
+		long stamp = lock.writeLock();
+		try {
+			if (blockStorage.needsExpansion(block)) {
+				blockStorage = blockStorage.expand();
+			}
+			blockStorage.setBlock(x, y, z, block);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		hasChanged = true;
+
+		if (block != null) {
+			empty = false;
+		}
+	}
+
+	// Sets a span of one column from minY to maxY inclusive.
+	public void fillColumn(int x, int z, int minY, int maxY, Block block) {
+		long stamp = lock.writeLock();
+		try {
+			if (blockStorage.needsExpansion(block)) {
+				blockStorage = blockStorage.expand();
+			}
+			blockStorage.fillColumn(x, z, minY, maxY, block);
+		} finally {
+			lock.unlockWrite(stamp);
 		}
-		blockStorage.setBlock(x, y, z, block);
 		hasChanged = true;
 
 		if (block != null) {
@@ -71,10 +126,79 @@ public class Chunk implements IBlockAccess {
 		}
 	}
 
+	// Sets a run of length blocks along z starting at x, y, z.
+	public void fillRun(int x, int y, int z, int length, Block block) {
+		long stamp = lock.writeLock();
+		try {
+			if (blockStorage.needsExpansion(block)) {
+				blockStorage = blockStorage.expand();
+			}
+			blockStorage.fillRun(x, y, z, length, block);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		hasChanged = true;
+
+		if (block != null) {
+			empty = false;
+		}
+	}
+
+	// Places a run of one decoration block along z, under one lock, wherever
+	// ChunkGenerator.canDecorate allows.
+	public void placeDecorationRun(int x, int y, int z, int length, Block block) {
+		boolean placed = false;
+
+		long stamp = lock.writeLock();
+		try {
+			for (int zz = z; zz < z + length; zz++) {
+				if (ChunkGenerator.canDecorate(blockStorage.getBlock(x, y, zz), block)) {
+					if (blockStorage.needsExpansion(block)) {
+						blockStorage = blockStorage.expand();
+					}
+					blockStorage.setBlock(x, y, zz, block);
+					placed = true;
+				}
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+
+		if (placed) {
+			hasChanged = true;
+			empty = false;
+		}
+	}
+
+	// Replaces every block in the chunk at once.
+	public void fill(Block block) {
+		long stamp = lock.writeLock();
+		try {
+			blockStorage = block == null ? new EmptyBlockStorage() : new UniformBlockStorage(block);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		empty = block == null;
+		hasChanged = true;
+	}
+
+	// Rough number of bytes the chunk keeps on the heap.
+	public int getMemoryUsage() {
+		return 128 + blockStorage.palette.size() * 8 + blockStorage.getMemoryUsage();
+	}
+
 	public boolean isEmpty() {
 		return empty;
 	}
 
+	public boolean isDecorated() {
+		return decorated;
+	}
+
+	public void setDecorated(boolean decorated) {
+		this.decorated = decorated;
+	}
+
 	public boolean contains(int x, int y, int z) {
 		x -= this.x * Chunk.LENGTH;
 		y -= this.y * Chunk.LENGTH;
@@ -91,30 +215,63 @@ public class Chunk implements IBlockAccess {
 	public CompoundItem serialize() {
 		var item = new CompoundItem();
 
-		var paletteItem = new ListItem(blockStorage.palette.stream()
-				.map(b -> (b == null ? Block.ID_AIR : b.id).serialize())
-				.collect(Collectors.toList()));
-		item.setItem("blockPalette", paletteItem);
+		long stamp = lock.writeLock();
+		try {
+			blockStorage = blockStorage.compact();
+
+			var paletteItem = new ListItem(blockStorage.palette.stream()
+					.map(b -> (b == null ? Block.ID_AIR : b.id).serialize())
+					.collect(Collectors.toList()));
+			item.setItem("blockPalette", paletteItem);
 
-		item.setByte("blockArrayType", blockStorage.getType());
-		item.setByteArray("blocks", blockStorage.getBytes());
+			item.setByte("blockArrayType", blockStorage.getType());
+			// Copied, since the item may be written on another thread while the chunk keeps changing.
+			item.setByteArray("blocks", blockStorage.getBytes().clone());
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		item.setBoolean("decorated", decorated);
 
 		return item;
 	}
 
-	public static Chunk deserialize(World world, int x, int y, int z, CompoundItem item) {
+	public static Chunk deserialize(World world, int x, int y, int z, CompoundItem item) throws IOException {
 		var paletteItem = item.getItem("blockPalette");
 		List<Block> palette = paletteItem.getList().stream()
 				.map(Identifier::deserialize)
 				.map(Block::fromId)
 				.collect(Collectors.toCollection(ArrayList::new));
 
-		byte[] blocks = item.getByteArray("blocks");
+		// The storage copies the blocks, so the item can still be queued for saving.
+		ByteBuffer blocks = ByteBuffer.wrap(item.getByteArray("blocks"));
 		byte blockArrayType = item.getByte("blockArrayType");
 
 		BlockStorage storage = BlockStorage.decode(blockArrayType, palette, blocks);
 
-		return new Chunk(world, x, y, z, storage);
+		Chunk chunk = new Chunk(world, x, y, z, storage);
+		// Chunks saved before decoration waited for neighbours were always decorated.
+		chunk.decorated = !item.containsKey("decorated") || item.getBoolean("decorated");
+		return chunk;
+	}
+
+	// Reads the same data as deserialize(CompoundItem) in place, with the blocks decoded
+	// straight from the view's buffer.
+	public static Chunk deserialize(World world, int x, int y, int z, PdsView view) throws IOException {
+		PdsReader paletteReader = view.getReader("blockPalette");
+		int length = paletteReader.beginList();
+		List<Block> palette = new ArrayList<>(length);
+		for (int i = 0; i < length; i++) {
+			palette.add(Block.fromId(Identifier.read(paletteReader)));
+		}
+
+		ByteBuffer blocks = view.getByteArray("blocks");
+		byte blockArrayType = view.getByte("blockArrayType");
+
+		BlockStorage storage = BlockStorage.decode(blockArrayType, palette, blocks);
+
+		Chunk chunk = new Chunk(world, x, y, z, storage);
+		chunk.decorated = !view.containsKey("decorated") || view.getBoolean("decorated");
+		return chunk;
 	}
 
 	public void dontSave() {
@@ -128,6 +285,7 @@ public class Chunk implements IBlockAccess {
 	public void save() {
 		if (hasChanged) {
 			world.saveHandler.saveChunkData(x, y, z, serialize());
+			hasChanged = false;
 		}
 	}
 }
@@ -0,0 +1,137 @@
+package io.bluestaggo.voxelthing.world;
+
+import io.bluestaggo.voxelthing.world.block.Block;
+import io.bluestaggo.voxelthing.world.generation.StructureTemplate;
+import io.bluestaggo.voxelthing.world.storage.ChunkStorage;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Groups block edits by chunk. Unlike World.setBlock, which sends an update for every block,
+// commit() sends a single update for each edited chunk, plus each neighbour whose border
+// was touched. Like World.setBlock, edits in chunks that aren't loaded are dropped.
+public class EditSession implements IBlockAccess, AutoCloseable {
+	private final World world;
+	private final Map<Chunk, Integer> editedFaces = new LinkedHashMap<>();
+
+	private Chunk lastChunk;
+	private int lastX, lastY, lastZ;
+
+	public EditSession(World world) {
+		this.world = world;
+	}
+
+	private Chunk getChunk(int cx, int cy, int cz) {
+		if (lastChunk == null || lastX != cx || lastY != cy || lastZ != cz) {
+			lastChunk = world.getChunkAt(cx, cy, cz);
+			lastX = cx;
+			lastY = cy;
+			lastZ = cz;
+		}
+		return lastChunk;
+	}
+
+	@Override
+	public Block getBlock(int x, int y, int z) {
+		Chunk chunk = getChunk(x >> Chunk.SIZE_POW2, y >> Chunk.SIZE_POW2, z >> Chunk.SIZE_POW2);
+		if (chunk == null) {
+			return null;
+		}
+		return chunk.getBlock(x & Chunk.LENGTH_MASK, y & Chunk.LENGTH_MASK, z & Chunk.LENGTH_MASK);
+	}
+
+	public void setBlock(int x, int y, int z, Block block) {
+		Chunk chunk = getChunk(x >> Chunk.SIZE_POW2, y >> Chunk.SIZE_POW2, z >> Chunk.SIZE_POW2);
+		if (chunk == null) {
+			return;
+		}
+
+		int lx = x & Chunk.LENGTH_MASK;
+		int ly = y & Chunk.LENGTH_MASK;
+		int lz = z & Chunk.LENGTH_MASK;
+		chunk.setBlock(lx, ly, lz, block);
+		markEdited(chunk, lx, ly, lz, lz);
+	}
+
+	private void markEdited(Chunk chunk, int x, int y, int minZ, int maxZ) {
+		int faces = 0;
+		if (minZ == 0) faces |= 1 << Direction.NORTH.ordinal();
+		if (maxZ == Chunk.LENGTH_MASK) faces |= 1 << Direction.SOUTH.ordinal();
+		if (x == 0) faces |= 1 << Direction.WEST.ordinal();
+		if (x == Chunk.LENGTH_MASK) faces |= 1 << Direction.EAST.ordinal();
+		if (y == 0) faces |= 1 << Direction.BOTTOM.ordinal();
+		if (y == Chunk.LENGTH_MASK) faces |= 1 << Direction.TOP.ordinal();
+		editedFaces.merge(chunk, faces, (a, b) -> a | b);
+	}
+
+	// Pastes a structure with its origin at x, y, z, one run at a time, replacing whatever is there.
+	public void placeTemplate(StructureTemplate template, int x, int y, int z) {
+		pasteTemplate(template, x, y, z, false);
+	}
+
+	// Pastes a structure as decoration, only where ChunkGenerator.canDecorate allows.
+	public void decorateTemplate(StructureTemplate template, int x, int y, int z) {
+		pasteTemplate(template, x, y, z, true);
+	}
+
+	private void pasteTemplate(StructureTemplate template, int x, int y, int z, boolean decoration) {
+		for (int i = 0; i < template.getRunCount(); i++) {
+			int xx = x + template.getRunX(i);
+			int yy = y + template.getRunY(i);
+			int zz = z + template.getRunZ(i);
+			int length = template.getRunLength(i);
+			Block block = template.getRunBlock(i);
+
+			// Runs are split where they cross into the next chunk.
+			while (length > 0) {
+				int lz = zz & Chunk.LENGTH_MASK;
+				int n = Math.min(length, Chunk.LENGTH - lz);
+
+				Chunk chunk = getChunk(xx >> Chunk.SIZE_POW2, yy >> Chunk.SIZE_POW2, zz >> Chunk.SIZE_POW2);
+				if (chunk != null) {
+					int lx = xx & Chunk.LENGTH_MASK;
+					int ly = yy & Chunk.LENGTH_MASK;
+					if (decoration) {
+						chunk.placeDecorationRun(lx, ly, lz, n, block);
+					} else {
+						chunk.fillRun(lx, ly, lz, n, block);
+					}
+					markEdited(chunk, lx, ly, lz, lz + n - 1);
+				}
+
+				zz += n;
+				length -= n;
+			}
+		}
+	}
+
+	public void commit() {
+		Set<Long> updated = new HashSet<>();
+		for (Map.Entry<Chunk, Integer> entry : editedFaces.entrySet()) {
+			Chunk chunk = entry.getKey();
+			int faces = entry.getValue();
+
+			update(updated, chunk.x, chunk.y, chunk.z);
+			for (Direction dir : Direction.ALL) {
+				if ((faces & 1 << dir.ordinal()) != 0) {
+					update(updated, chunk.x + dir.X, chunk.y + dir.Y, chunk.z + dir.Z);
+				}
+			}
+		}
+
+		editedFaces.clear();
+	}
+
+	private void update(Set<Long> updated, int cx, int cy, int cz) {
+		if (updated.add(ChunkStorage.chunkKey(cx, cy, cz))) {
+			world.onChunkUpdate(cx, cy, cz);
+		}
+	}
+
+	@Override
+	public void close() {
+		commit();
+	}
+}
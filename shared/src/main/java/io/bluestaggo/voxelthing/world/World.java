@@ -4,14 +4,15 @@ import io.bluestaggo.pds.CompoundItem;
 import io.bluestaggo.voxelthing.math.AABB;
 import io.bluestaggo.voxelthing.math.MathUtil;
 import io.bluestaggo.voxelthing.world.block.Block;
+import io.bluestaggo.voxelthing.world.generation.ChunkGenerator;
 import io.bluestaggo.voxelthing.world.generation.GenCache;
-import io.bluestaggo.voxelthing.world.generation.GenerationInfo;
-import io.bluestaggo.voxelthing.world.generation.Structures;
+import io.bluestaggo.voxelthing.world.generation.GenerationService;
+import io.bluestaggo.voxelthing.world.generation.StructureTemplate;
 import io.bluestaggo.voxelthing.world.generation.WorldType;
+import io.bluestaggo.voxelthing.world.storage.ChunkSaveQueue;
 import io.bluestaggo.voxelthing.world.storage.ChunkStorage;
 import io.bluestaggo.voxelthing.world.storage.EmptySaveHandler;
 import io.bluestaggo.voxelthing.world.storage.ISaveHandler;
-import io.bluestaggo.voxelthing.world.generation.Biomes;
 import org.joml.Vector3d;
 import org.joml.Vector3i;
 
@@ -20,8 +21,15 @@ import java.util.List;
 import java.util.Random;
 
 public class World implements IBlockAccess {
+	// Adding a finished chunk may decorate it and its neighbours on the main thread, so update()
+	// stops taking finished chunks once this much of the frame is used and leaves the rest for the
+	// next frame.
+	private static final long CHUNK_ADD_BUDGET_NANOS = 4_000_000L;
+
 	protected final ChunkStorage chunkStorage;
 	public final GenCache genCache;
+	private final ChunkGenerator generator;
+	private final GenerationService generationService;
 	public final ISaveHandler saveHandler;
 	public final WorldType worldType;
 
@@ -55,10 +63,14 @@ public class World implements IBlockAccess {
 		
 		if (saveHandler == null) {
 			saveHandler = new EmptySaveHandler();
+		} else {
+			saveHandler = new ChunkSaveQueue(saveHandler);
 		}
 
 		chunkStorage = new ChunkStorage(this);
 		genCache = new GenCache(this);
+		generator = new ChunkGenerator(this);
+		generationService = new GenerationService(this, generator);
 		this.saveHandler = saveHandler;
 	}
 
@@ -109,114 +121,100 @@ public class World implements IBlockAccess {
 		onBlockUpdate(x, y, z);
 	}
 
+	// Starts a batch of edits which only sends chunk updates once committed.
+	public EditSession edit() {
+		return new EditSession(this);
+	}
+
+	public void placeStructure(int x, int y, int z, StructureTemplate template) {
+		try (EditSession session = edit()) {
+			session.placeTemplate(template, x, y, z);
+		}
+	}
+
 	public void loadChunkAt(int cx, int cy, int cz) {
 		if (chunkStorage.getChunkAt(cx, cy, cz) != null) {
 			return;
 		}
 
-		Chunk chunk = chunkStorage.newChunkAt(cx, cy, cz);
-		GenerationInfo genInfo = genCache.getGenerationAt(cx, cz, worldType);
-
-
-		genInfo.generate();
-		genInfo.biomeGen();
-		genInfo.treeGen();
-		for (int x = 0; x < Chunk.LENGTH; x++) {
-			for (int z = 0; z < Chunk.LENGTH; z++) {
-				float height = genInfo.getHeight(x, z);
-				Biomes biome = genInfo.getBiome(x, z);
-				float trees = genInfo.getTree(x, z);
-
-				
-				for (int y = 0; y < Chunk.LENGTH; y++) {
-					int yy = cy * Chunk.LENGTH + y;
-					int xx = cx * Chunk.LENGTH + x;
-					int zz = cz * Chunk.LENGTH + z;
-					boolean cave = yy < height && genInfo.getCave(x, yy, z);
-					Block block = null;
-					Block topLayerBlock = Block.GRASS;
-					Block lowerLayerBlock = Block.DIRT;
-					Block snowLayerBlock = Block.SNOW;
-
-					if (biome == Biomes.Desert) {
-						topLayerBlock = Block.SAND;
-						lowerLayerBlock = Block.SAND;
-						snowLayerBlock = Block.STONE;
-					}
+		Chunk chunk = saveHandler.loadChunk(this, cx, cy, cz);
+		if (chunk == null) {
+			chunk = generator.generate(cx, cy, cz);
+		}
+		addChunk(chunk);
+	}
 
-					if (biome == Biomes.Jungle) {
-						snowLayerBlock = Block.STONE;
-					}
-					
-
-					//increase water level for chaotic world
-					int waterLevel = genInfo.waterLevel;
-					int snowHeight = genInfo.snowLevel;
-					int blend = genInfo.blendSnowLevel;
-					if (!cave) {
-						if (yy < height - 4) {
-							block = Block.STONE;
-						} else if (yy < height - 1 && yy < snowHeight) {
-							block = lowerLayerBlock;
-							//blends grass -> snow
-							if (yy > blend) {
-								if (Math.random() > 0.5) {
-									block = lowerLayerBlock;
-								} else {
-									block = snowLayerBlock;
-								}
-							}
-						} else if (yy < height && yy > waterLevel && yy < snowHeight) {
-							block = topLayerBlock;
-							//blends grass -> snow
-							if (yy > blend) {
-								if (Math.random() > 0.5) {
-									block = topLayerBlock;
-								} else {
-									block = snowLayerBlock;
-								}
-							}
-						} else if (yy < height && yy < waterLevel) {
-							block = Block.SAND;
-						} else if (yy < height && yy > snowHeight-1) {
-							block = snowLayerBlock;
-						} else if (yy < waterLevel && worldType == WorldType.Normal) {
-							block = Block.WATER;
-						}
-
-
-					if (trees != 0 && yy == Math.round(height) && yy > waterLevel && yy < snowHeight) {
-						
-						if (trees == 1) {
-							for (int i = 0; i < Structures.SmallTree.getStructure().length; i++) {
-								int xxx =  xx - Structures.SmallTree.getStructure()[i].x;
-								int yyy = yy - Structures.SmallTree.getStructure()[i].y;
-								int zzz = zz - Structures.SmallTree.getStructure()[i].z;
-
-								setBlock(xxx, yyy, zzz, Structures.SmallTree.getStructure()[i].block);
-							}
-						}
-						if (trees == 2) {
-							for (int i = 0; i < Structures.LargeTree.getStructure().length; i++) {
-								setBlock(xx - Structures.LargeTree.getStructure()[i].x, yy - Structures.LargeTree.getStructure()[i].y, zz - Structures.LargeTree.getStructure()[i].z, Structures.LargeTree.getStructure()[i].block);
-							}
-						}
-
-						if (getBlock(xx, yy-1, zz) == null) {
-							setBlock(xx, yy-1, zz, Block.LOG);
-						}
+	public void requestChunkAt(int cx, int cy, int cz) {
+		if (chunkStorage.getChunkAt(cx, cy, cz) == null) {
+			generationService.request(cx, cy, cz);
+		}
+	}
+
+	public void setLoadCenter(int cx, int cy, int cz, int radius) {
+		generationService.setCenter(cx, cy, cz, radius);
+		chunkStorage.setCenter(cx, cy, cz, radius);
+	}
+
+	public int getLoadedChunkCount() {
+		return chunkStorage.getChunkCount();
+	}
+
+	public long getChunkMemoryEstimate() {
+		return chunkStorage.getMemoryEstimate();
+	}
+
+	private void addChunk(Chunk chunk) {
+		chunkStorage.putChunk(chunk);
+		decorateAround(chunk.x, chunk.y, chunk.z);
+		onChunkAdded(chunk.x, chunk.y, chunk.z);
+	}
+
+	// Trees reach into every neighbouring chunk, so a chunk is only decorated once all 26 of its
+	// neighbours are loaded, and decoration never has to wait for a chunk that isn't there. Adding
+	// a chunk can complete the neighbourhood of itself or of any of its neighbours.
+	private void decorateAround(int cx, int cy, int cz) {
+		for (int x = cx - 1; x <= cx + 1; x++) {
+			for (int y = cy - 1; y <= cy + 1; y++) {
+				for (int z = cz - 1; z <= cz + 1; z++) {
+					Chunk chunk = chunkStorage.getChunkAt(x, y, z);
+					if (chunk != null && !chunk.isDecorated() && neighboursLoaded(x, y, z)) {
+						generator.decorate(chunk);
+						chunk.setDecorated(true);
 					}
 				}
-					if (block != null) {
-						chunk.setBlock(x, y, z, block);
+			}
+		}
+	}
+
+	private boolean neighboursLoaded(int cx, int cy, int cz) {
+		for (int x = cx - 1; x <= cx + 1; x++) {
+			for (int y = cy - 1; y <= cy + 1; y++) {
+				for (int z = cz - 1; z <= cz + 1; z++) {
+					if (chunkStorage.getChunkAt(x, y, z) == null) {
+						return false;
 					}
 				}
 			}
 		}
-		chunk.dontSave();
-		onChunkAdded(cx, cy, cz);
+		return true;
 	}
 
+	public void update() {
+		long start = System.nanoTime();
+		GenerationService.Task task;
+		while ((task = generationService.pollFinished()) != null) {
+			Chunk chunk = task.getChunk();
+			if (chunkStorage.getChunkAt(chunk.x, chunk.y, chunk.z) == null) {
+				addChunk(chunk);
+			}
+
+			if (System.nanoTime() - start >= CHUNK_ADD_BUDGET_NANOS) {
+				break;
+			}
+		}
+
+		chunkStorage.evict();
+	}
 
 	public void loadSurroundingChunks(int cx, int cy, int cz, int radius) {
 		List<Vector3i> points = MathUtil.getSpherePoints(radius);
@@ -307,8 +305,13 @@ public class World implements IBlockAccess {
 	public void onChunkAdded(int x, int y, int z) {
 	}
 
+	public void onChunkUpdate(int x, int y, int z) {
+	}
+
 	public void close() {
+		generationService.shutdown();
 		saveHandler.saveData("world", info.serialize());
 		chunkStorage.unloadAllChunks();
+		saveHandler.close();
 	}
 }
@@ -27,6 +27,7 @@ public class Block {
 	public static final List<Block> REGISTERED_SLABS_O = new ArrayList<>();
 	public static final Map<Identifier, Block> REGISTERED_SLABS_M = new HashMap<>();
 	public static final List<Block> REGISTERED_SLABS_ORDERED = Collections.unmodifiableList(REGISTERED_SLABS_O);
+	private static boolean registryFrozen;
 
 	public final BlockType type;
 	public String[] blockStates = {};
@@ -112,6 +113,8 @@ public class Block {
 			.toArray(Block[]::new);
 
 	public final Identifier id;
+	// Dense id assigned in registration order, starting at 1. Not saved, since it can change between versions.
+	public final int runtimeId;
 	protected BlockTexture texture;
 	protected BlockTransparency transparency = BlockTransparency.NONE;
 
@@ -149,6 +152,9 @@ public class Block {
 
 	public Block(Identifier id, BlockType type, String[] states, float hardness) {
 		this.hardness  = hardness;
+		if (registryFrozen) {
+			throw new IllegalStateException("Cannot register block \"" + id + "\" after the block table was built");
+		}
 		if (REGISTERED_BLOCKS.containsKey(id)) {
 			throw new IllegalArgumentException("Block \"" + id + "\" already exists");
 		}
@@ -157,6 +163,7 @@ public class Block {
 		this.blockStates = states;
 
 		this.id = id;
+		runtimeId = REGISTERED_BLOCKS_ORDERED_MUTABLE.size() + 1;
 		REGISTERED_BLOCKS_ORDERED_MUTABLE.add(this);
 		REGISTERED_BLOCKS_MUTABLE.put(id, this);
 		if (type == BlockType.slab) {
@@ -165,6 +172,10 @@ public class Block {
 		}
 	}
 
+	static void freezeRegistry() {
+		registryFrozen = true;
+	}
+
 	public static Block fromId(Identifier id) {
 		if (REGISTERED_BLOCKS_MUTABLE.containsKey(id)) {
 			return REGISTERED_BLOCKS_MUTABLE.get(id);
@@ -224,33 +235,25 @@ public class Block {
 
 	public boolean isFaceDrawn(IBlockAccess blockAccess, int x, int y, int z, Direction face, Block ogBlock) {
 		Block block = blockAccess.getBlock(x, y, z);
-		try {
-			if (block.type == BlockType.slab && ogBlock.type == BlockType.slab && (face == Direction.BOTTOM || face == Direction.TOP)) {
-				return true;
-			}
-			if (block == WATER && blockAccess.getBlock(x,y+1,z) == null) {
-				return true;
-			}
-		} catch (NullPointerException e) {
-
+		if (block == null) {
+			return true;
 		}
 
-		if (block == null || (block.type == BlockType.slab && ogBlock.type != BlockType.slab ) ) {
+		int id = block.runtimeId;
+		if (BlockTable.SLAB[id] && (!BlockTable.SLAB[ogBlock.runtimeId] || face == Direction.BOTTOM || face == Direction.TOP)) {
 			return true;
 		}
-
-		if (transparency.transparent) {
-			if (!transparency.drawSameFaces) {
-				return block != this;
-			}
-		} else {
-			return block.isTransparent();
+		if (block == WATER && blockAccess.getBlock(x, y + 1, z) == null) {
+			return true;
 		}
 
-		return true;
+		if (BlockTable.TRANSPARENT[runtimeId]) {
+			return BlockTable.DRAW_SAME_FACES[runtimeId] || block != this;
+		}
+		return BlockTable.TRANSPARENT[id];
 	}
 
 	public AABB getCollisionBox(int x, int y, int z) {
-		return new AABB(x, y, z, x + this.type.shape().x, y + this.type.shape().y, z + this.type.shape().z);
+		return new AABB(x, y, z, x + BlockTable.SHAPE_X[runtimeId], y + BlockTable.SHAPE_Y[runtimeId], z + BlockTable.SHAPE_Z[runtimeId]);
 	}
 }
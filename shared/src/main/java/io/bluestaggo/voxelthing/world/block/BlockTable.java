@@ -0,0 +1,66 @@
+package io.bluestaggo.voxelthing.world.block;
+
+import io.bluestaggo.voxelthing.world.Direction;
+import io.bluestaggo.voxelthing.world.block.texture.BlockTexture;
+import org.joml.Vector2i;
+import org.joml.Vector3f;
+
+// Block properties laid out as flat arrays indexed by runtime id, with air at id 0.
+// Built once after every block has been registered; no blocks can be added afterwards.
+public final class BlockTable {
+	private static final int FACES = Direction.ALL.length;
+
+	public static final int SIZE = Block.REGISTERED_BLOCKS_ORDERED.size() + 1;
+
+	public static final Block[] BLOCKS = new Block[SIZE];
+	public static final boolean[] TRANSPARENT = new boolean[SIZE];
+	public static final boolean[] DRAW_SAME_FACES = new boolean[SIZE];
+	public static final boolean[] SLAB = new boolean[SIZE];
+	public static final boolean[] LIQUID = new boolean[SIZE];
+
+	// Extents of each block's shape, which is also its collision box.
+	public static final float[] SHAPE_X = new float[SIZE];
+	public static final float[] SHAPE_Y = new float[SIZE];
+	public static final float[] SHAPE_Z = new float[SIZE];
+
+	// Texture coordinates of each face, at SIZE * face + id. Only valid for blocks without
+	// a neighbour dependent texture.
+	public static final int[] TEXTURE_X = new int[SIZE * FACES];
+	public static final int[] TEXTURE_Y = new int[SIZE * FACES];
+	public static final boolean[] NEIGHBOUR_TEXTURE = new boolean[SIZE];
+
+	static {
+		for (Block block : Block.REGISTERED_BLOCKS_ORDERED) {
+			int id = block.runtimeId;
+			BLOCKS[id] = block;
+			TRANSPARENT[id] = block.transparency.transparent;
+			DRAW_SAME_FACES[id] = block.transparency.drawSameFaces;
+			SLAB[id] = block.type == BlockType.slab;
+			LIQUID[id] = block.type == BlockType.liquid;
+
+			Vector3f shape = block.type.shape();
+			SHAPE_X[id] = shape.x;
+			SHAPE_Y[id] = shape.y;
+			SHAPE_Z[id] = shape.z;
+
+			BlockTexture texture = block.getTexture();
+			if (texture != null) {
+				NEIGHBOUR_TEXTURE[id] = texture.dependsOnNeighbours();
+				for (Direction face : Direction.ALL) {
+					Vector2i coords = texture.get(face);
+					TEXTURE_X[SIZE * face.ordinal() + id] = coords.x;
+					TEXTURE_Y[SIZE * face.ordinal() + id] = coords.y;
+				}
+			}
+		}
+
+		Block.freezeRegistry();
+	}
+
+	private BlockTable() {
+	}
+
+	public static int idOf(Block block) {
+		return block == null ? 0 : block.runtimeId;
+	}
+}
@@ -10,4 +10,9 @@ public interface BlockTexture {
 	default Vector2i get(Direction face) {
 		return get(face, null, 0, 0, 0);
 	}
+
+	// Whether the texture can change with the surrounding blocks, so it can't be looked up ahead of time.
+	default boolean dependsOnNeighbours() {
+		return false;
+	}
 }
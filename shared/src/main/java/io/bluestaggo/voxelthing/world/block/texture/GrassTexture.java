@@ -10,6 +10,11 @@ public class GrassTexture extends SideTopBottomTexture {
 		super(sx, sy, tx, ty, bx, by);
 	}
 
+	@Override
+	public boolean dependsOnNeighbours() {
+		return true;
+	}
+
 	@Override
 	public Vector2i get(Direction face, IBlockAccess blockAccess, int x, int y, int z) {
 		return switch (face) {
@@ -0,0 +1,98 @@
+package io.bluestaggo.voxelthing.world.generation;
+
+import io.bluestaggo.voxelthing.math.MathUtil;
+import io.bluestaggo.voxelthing.world.Chunk;
+
+import java.util.BitSet;
+
+// The cave density lattice around one chunk, with samples every 4 blocks and one extra sample on
+// the far side of each axis. Samples are not computed here: each chunk layer of a column owns the
+// 8x8x8 samples at its low corner, cached in its GenerationInfo, and the far border is borrowed
+// from the neighbouring columns and the layer above, so no sample is computed twice.
+public class CaveLattice {
+	public static final int SHIFT_POW2 = Chunk.SIZE_POW2 - 3;
+	public static final int CELL_LENGTH = Chunk.LENGTH >> SHIFT_POW2;
+	public static final int CELL_VOLUME = CELL_LENGTH * CELL_LENGTH * CELL_LENGTH;
+	public static final int LENGTH = CELL_LENGTH + 1;
+
+	private static final float CHEESE_MIN_DENSITY = -1.0f;
+	private static final float CHEESE_MAX_DENSITY = -0.3f;
+	private static final float CHEESE_DENSITY_SPREAD = 100.0f;
+	private static final float CHEESE_DENSITY_SURFACE = -0.5f;
+
+	private final float[] samples = new float[LENGTH * LENGTH * LENGTH];
+	private final int layer;
+
+	public CaveLattice(GenCache cache, int cx, int cy, int cz, WorldType type) {
+		layer = cy;
+
+		for (int dx = 0; dx <= 1; dx++) {
+			for (int dz = 0; dz <= 1; dz++) {
+				GenerationInfo column = cache.getGenerationAt(cx + dx, cz + dz, type);
+				for (int dy = 0; dy <= 1; dy++) {
+					copyCell(column.getCaveSamples(cy + dy), dx, dy, dz);
+				}
+			}
+		}
+	}
+
+	// Copies the part of a neighbouring cell that falls inside this lattice: all of it for the
+	// chunk's own cell, one face, edge or corner for the others.
+	private void copyCell(float[] cell, int dx, int dy, int dz) {
+		int minX = dx * CELL_LENGTH, maxX = dx == 0 ? CELL_LENGTH - 1 : CELL_LENGTH;
+		int minY = dy * CELL_LENGTH, maxY = dy == 0 ? CELL_LENGTH - 1 : CELL_LENGTH;
+		int minZ = dz * CELL_LENGTH, maxZ = dz == 0 ? CELL_LENGTH - 1 : CELL_LENGTH;
+
+		for (int x = minX; x <= maxX; x++) {
+			for (int y = minY; y <= maxY; y++) {
+				for (int z = minZ; z <= maxZ; z++) {
+					samples[MathUtil.index3D(x, y, z, LENGTH)] = cell[MathUtil.index3D(x - minX, y - minY, z - minZ, CELL_LENGTH)];
+				}
+			}
+		}
+	}
+
+	private static float threshold(int y) {
+		return MathUtil.clamp(-y / CHEESE_DENSITY_SPREAD + CHEESE_DENSITY_SURFACE, CHEESE_MIN_DENSITY, CHEESE_MAX_DENSITY);
+	}
+
+	private float density(int x, int y, int z) {
+		int shiftMask = (1 << SHIFT_POW2) - 1;
+		float shiftDiv = 1 << SHIFT_POW2;
+		int xx = x >> SHIFT_POW2;
+		int yy = (y & Chunk.LENGTH_MASK) >> SHIFT_POW2;
+		int zz = z >> SHIFT_POW2;
+
+		float c000 = samples[MathUtil.index3D(xx, yy, zz, LENGTH)];
+		float c001 = samples[MathUtil.index3D(xx, yy, zz + 1, LENGTH)];
+		float c010 = samples[MathUtil.index3D(xx, yy + 1, zz, LENGTH)];
+		float c011 = samples[MathUtil.index3D(xx, yy + 1, zz + 1, LENGTH)];
+		float c100 = samples[MathUtil.index3D(xx + 1, yy, zz, LENGTH)];
+		float c101 = samples[MathUtil.index3D(xx + 1, yy, zz + 1, LENGTH)];
+		float c110 = samples[MathUtil.index3D(xx + 1, yy + 1, zz, LENGTH)];
+		float c111 = samples[MathUtil.index3D(xx + 1, yy + 1, zz + 1, LENGTH)];
+		return MathUtil.trilinear(c000, c001, c010, c011, c100, c101, c110, c111,
+				(x & shiftMask) / shiftDiv, (y & shiftMask) / shiftDiv, (z & shiftMask) / shiftDiv);
+	}
+
+	// Takes chunk local x and z, but a world y, which the cave threshold depends on.
+	public boolean isCave(int x, int y, int z) {
+		return density(x, y, z) < threshold(y);
+	}
+
+	// Sets bit index3D(x, y, z) of every cave block in the chunk.
+	public void getCaves(BitSet out) {
+		out.clear();
+		for (int y = 0; y < Chunk.LENGTH; y++) {
+			int yy = (layer << Chunk.SIZE_POW2) + y;
+			float threshold = threshold(yy);
+			for (int x = 0; x < Chunk.LENGTH; x++) {
+				for (int z = 0; z < Chunk.LENGTH; z++) {
+					if (density(x, yy, z) < threshold) {
+						out.set(MathUtil.index3D(x, y, z, Chunk.LENGTH));
+					}
+				}
+			}
+		}
+	}
+}
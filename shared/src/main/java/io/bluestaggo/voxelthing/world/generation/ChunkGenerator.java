@@ -0,0 +1,206 @@
+package io.bluestaggo.voxelthing.world.generation;
+
+import io.bluestaggo.voxelthing.math.MathUtil;
+import io.bluestaggo.voxelthing.world.Chunk;
+import io.bluestaggo.voxelthing.world.EditSession;
+import io.bluestaggo.voxelthing.world.World;
+import io.bluestaggo.voxelthing.world.block.Block;
+
+import java.util.BitSet;
+
+// generate() only touches the chunk it creates, so it can run on worker threads.
+// decorate() writes into neighbouring chunks, so it must run on the main thread and only once
+// all of them are loaded.
+public class ChunkGenerator {
+	private final World world;
+
+	public ChunkGenerator(World world) {
+		this.world = world;
+	}
+
+	private GenerationInfo getGenerationInfo(int cx, int cz) {
+		GenerationInfo genInfo = world.genCache.getGenerationAt(cx, cz, world.worldType);
+		genInfo.generate();
+		genInfo.biomeGen();
+		genInfo.treeGen();
+		return genInfo;
+	}
+
+	public Chunk generate(int cx, int cy, int cz) {
+		Chunk chunk = new Chunk(world, cx, cy, cz);
+		chunk.setDecorated(false);
+		GenerationInfo genInfo = getGenerationInfo(cx, cz);
+
+		float minHeight = Float.MAX_VALUE;
+		float maxHeight = -Float.MAX_VALUE;
+		for (int x = 0; x < Chunk.LENGTH; x++) {
+			for (int z = 0; z < Chunk.LENGTH; z++) {
+				float height = genInfo.getHeight(x, z);
+				minHeight = Math.min(minHeight, height);
+				maxHeight = Math.max(maxHeight, height);
+			}
+		}
+
+		// Chunks entirely above the terrain are either open air or open water.
+		int minY = cy * Chunk.LENGTH;
+		int maxY = minY + Chunk.LENGTH - 1;
+		if (minY >= maxHeight) {
+			if (maxY < genInfo.waterLevel && world.worldType == WorldType.Normal) {
+				chunk.fill(Block.WATER);
+			}
+			chunk.dontSave();
+			return chunk;
+		}
+
+		// Chunks entirely below the surface layers are solid stone, apart from caves.
+		boolean solid = maxY < minHeight - 4;
+		if (solid) {
+			chunk.fill(Block.STONE);
+		}
+
+		BitSet caves = new BitSet(Chunk.VOLUME);
+		new CaveLattice(world.genCache, cx, cy, cz, world.worldType).getCaves(caves);
+
+		// Each column is written as runs of the same block rather than block by block.
+		Block baseBlock = solid ? Block.STONE : null;
+		for (int x = 0; x < Chunk.LENGTH; x++) {
+			for (int z = 0; z < Chunk.LENGTH; z++) {
+				float height = genInfo.getHeight(x, z);
+				Biomes biome = genInfo.getBiome(x, z);
+				int xx = chunk.toGlobalX(x);
+				int zz = chunk.toGlobalZ(z);
+
+				Block topLayerBlock = Block.GRASS;
+				Block lowerLayerBlock = Block.DIRT;
+				Block snowLayerBlock = Block.SNOW;
+
+				if (biome == Biomes.Desert) {
+					topLayerBlock = Block.SAND;
+					lowerLayerBlock = Block.SAND;
+					snowLayerBlock = Block.STONE;
+				}
+
+				if (biome == Biomes.Jungle) {
+					snowLayerBlock = Block.STONE;
+				}
+
+				//increase water level for chaotic world
+				int waterLevel = genInfo.waterLevel;
+				int snowHeight = genInfo.snowLevel;
+				int blend = genInfo.blendSnowLevel;
+
+				Block runBlock = baseBlock;
+				int runStart = 0;
+				for (int y = 0; y < Chunk.LENGTH; y++) {
+					int yy = minY + y;
+					boolean cave = yy < height && caves.get(MathUtil.index3D(x, y, z, Chunk.LENGTH));
+
+					Block block = null;
+					if (solid) {
+						block = cave ? null : Block.STONE;
+					} else if (!cave) {
+						if (yy < height - 4) {
+							block = Block.STONE;
+						} else if (yy < height - 1 && yy < snowHeight) {
+							block = lowerLayerBlock;
+							//blends grass -> snow
+							if (yy > blend) {
+								if (genInfo.randomAt(xx, yy, zz) > 0.5f) {
+									block = lowerLayerBlock;
+								} else {
+									block = snowLayerBlock;
+								}
+							}
+						} else if (yy < height && yy > waterLevel && yy < snowHeight) {
+							block = topLayerBlock;
+							//blends grass -> snow
+							if (yy > blend) {
+								if (genInfo.randomAt(xx, yy, zz) > 0.5f) {
+									block = topLayerBlock;
+								} else {
+									block = snowLayerBlock;
+								}
+							}
+						} else if (yy < height && yy < waterLevel) {
+							block = Block.SAND;
+						} else if (yy < height && yy > snowHeight-1) {
+							block = snowLayerBlock;
+						} else if (yy < waterLevel && world.worldType == WorldType.Normal) {
+							block = Block.WATER;
+						}
+					}
+
+					if (block != runBlock) {
+						if (runBlock != baseBlock) {
+							chunk.fillColumn(x, z, runStart, y - 1, runBlock);
+						}
+						runBlock = block;
+						runStart = y;
+					}
+				}
+
+				if (runBlock != baseBlock) {
+					chunk.fillColumn(x, z, runStart, Chunk.LENGTH - 1, runBlock);
+				}
+			}
+		}
+
+		chunk.dontSave();
+		return chunk;
+	}
+
+	public void decorate(Chunk chunk) {
+		GenerationInfo genInfo = getGenerationInfo(chunk.x, chunk.z);
+		CaveLattice caves = new CaveLattice(world.genCache, chunk.x, chunk.y, chunk.z, world.worldType);
+		EditSession session = world.edit();
+		CaveLattice cavesBelow = null;
+
+		for (int x = 0; x < Chunk.LENGTH; x++) {
+			for (int z = 0; z < Chunk.LENGTH; z++) {
+				float height = genInfo.getHeight(x, z);
+				float trees = genInfo.getTree(x, z);
+				int yy = Math.round(height);
+
+				if (trees == 0 || yy >> Chunk.SIZE_POW2 != chunk.y
+						|| yy <= genInfo.waterLevel || yy >= genInfo.snowLevel) {
+					continue;
+				}
+
+				if (yy < height && caves.isCave(x, yy, z)) {
+					continue;
+				}
+
+				int xx = chunk.toGlobalX(x);
+				int zz = chunk.toGlobalZ(z);
+
+				if (trees == 1) {
+					session.decorateTemplate(Structures.SmallTree.getTemplate(), xx, yy, zz);
+				}
+				if (trees == 2) {
+					session.decorateTemplate(Structures.LargeTree.getTemplate(), xx, yy, zz);
+				}
+
+				// Trees over a cave get a log below them. Whether that spot is air is decided from
+				// the terrain rather than the world, since another tree may already be there.
+				CaveLattice belowCaves = caves;
+				if (yy - 1 >> Chunk.SIZE_POW2 != chunk.y) {
+					if (cavesBelow == null) {
+						cavesBelow = new CaveLattice(world.genCache, chunk.x, chunk.y - 1, chunk.z, world.worldType);
+					}
+					belowCaves = cavesBelow;
+				}
+				if (belowCaves.isCave(x, yy - 1, z)) {
+					session.setBlock(xx, yy - 1, zz, Block.LOG);
+				}
+			}
+		}
+
+		session.commit();
+	}
+
+	// Decoration replaces terrain like it always has, but never replaces a log with anything else,
+	// so overlapping trees come out the same whichever order chunks are decorated in.
+	public static boolean canDecorate(Block existing, Block block) {
+		return existing != Block.LOG || block == Block.LOG;
+	}
+}
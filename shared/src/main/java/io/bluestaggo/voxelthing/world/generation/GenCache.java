@@ -1,34 +1,99 @@
 package io.bluestaggo.voxelthing.world.generation;
 
 import io.bluestaggo.voxelthing.world.World;
-import io.bluestaggo.voxelthing.world.storage.ChunkStorage;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Keeps the generation info of recently used chunk columns, so every chunk in a column shares
+// one height, biome and tree map. Lookups are lock free; adding a column takes the cache lock
+// and, once the cache is full, evicts a column not used since the clock hand last passed it.
 public class GenCache {
-	public static final int RADIUS_POW2 = ChunkStorage.RADIUS_POW2;
-	public static final int AREA = 1 << RADIUS_POW2 * 2;
-	public static final int POS_MASK = (1 << RADIUS_POW2) - 1;
+	// Rough heap size of one column: height, biome and tree maps plus a few layers of cave samples.
+	public static final int ENTRY_SIZE = 32 * 1024;
+	public static final long DEFAULT_MEMORY_BUDGET = 32L * 1024 * 1024;
 
 	private final World world;
-	private final GenerationInfo[] cache = new GenerationInfo[AREA];
+	private final ConcurrentHashMap<Long, GenerationInfo> cache = new ConcurrentHashMap<>();
+	private final GenerationInfo[] clock;
+	private int clockHand;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
 
 	public GenCache(World world) {
+		this(world, DEFAULT_MEMORY_BUDGET);
+	}
+
+	public GenCache(World world, long memoryBudget) {
 		this.world = world;
+		clock = new GenerationInfo[(int) Math.max(16, memoryBudget / ENTRY_SIZE)];
 	}
 
-	public static int cacheCoords(int x, int z) {
-		x &= POS_MASK;
-		z &= POS_MASK;
-		return (x << RADIUS_POW2 | z);
+	private static long columnKey(int x, int z) {
+		return (long) x << 32 | z & 0xFFFFFFFFL;
 	}
 
 	public GenerationInfo getGenerationAt(int x, int z, WorldType type) {
-		GenerationInfo entry = cache[cacheCoords(x, z)];
-		if (entry != null && entry.chunkX == x && entry.chunkZ == z) {
+		long key = columnKey(x, z);
+		GenerationInfo entry = cache.get(key);
+		if (entry != null) {
+			entry.recentlyUsed = true;
+			hits.incrementAndGet();
+			return entry;
+		}
+
+		synchronized (this) {
+			entry = cache.get(key);
+			if (entry != null) {
+				entry.recentlyUsed = true;
+				hits.incrementAndGet();
+				return entry;
+			}
+
+			// Creating the entry is cheap, the maps are only generated once something asks for them.
+			entry = new GenerationInfo(world.info.seed, x, z, type);
+			insert(key, entry);
+			misses.incrementAndGet();
 			return entry;
 		}
+	}
+
+	private void insert(long key, GenerationInfo entry) {
+		while (clock[clockHand] != null && clock[clockHand].recentlyUsed) {
+			clock[clockHand].recentlyUsed = false;
+			clockHand = (clockHand + 1) % clock.length;
+		}
+
+		GenerationInfo evicted = clock[clockHand];
+		if (evicted != null) {
+			cache.remove(columnKey(evicted.chunkX, evicted.chunkZ));
+		}
+
+		clock[clockHand] = entry;
+		clockHand = (clockHand + 1) % clock.length;
+		cache.put(key, entry);
+	}
+
+	public int getSize() {
+		return cache.size();
+	}
+
+	public int getCapacity() {
+		return clock.length;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
 
-		entry = new GenerationInfo(world.info.seed, x, z, type);
-		cache[cacheCoords(x, z)] = entry;
-		return entry;
+	public double getHitRate() {
+		long hits = this.hits.get();
+		long total = hits + misses.get();
+		return total == 0 ? 0.0 : (double) hits / total;
 	}
 }
@@ -5,11 +5,13 @@ import io.bluestaggo.voxelthing.math.OpenSimplex2Octaves;
 import io.bluestaggo.voxelthing.world.Chunk;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 public class GenerationInfo {
-	private static final int LERP_MAP_LENGTH = (Chunk.LENGTH >> 2) + 1;
-	private static final int LERP_MAP_SIZE = LERP_MAP_LENGTH * LERP_MAP_LENGTH * LERP_MAP_LENGTH;
+	// Biome noise is sampled once per 2^n by 2^n blocks. 0 samples every block, giving the same
+	// biomes as before they were interpolated.
+	public static final int BIOME_RESOLUTION_POW2 = 2;
 
 	public final int chunkX, chunkZ;
 	private long randSeed;
@@ -25,6 +27,7 @@ public class GenerationInfo {
 	private final long coalSeed;
 	private final long ironSeed;
 	private final long goldSeed;
+	private final long randomSeed;
 
 	public ArrayList<ArrayList<Double>> voronoiSeeds;
 	public ArrayList<ArrayList<Double>> unModVSeeds;
@@ -43,10 +46,15 @@ public class GenerationInfo {
 	private final Biomes[] biomes = new Biomes[Chunk.AREA];
 
 	private final float[] trees = new float[Chunk.AREA];
-	private final float[] caveInfo = new float[LERP_MAP_SIZE];
-	private int lastQueryLayer = Integer.MAX_VALUE;
+	// Cave samples of each chunk layer in this column, see CaveLattice.
+	private final Map<Integer, float[]> caveSamples = new HashMap<>();
 
 	private boolean hasGenerated;
+	private boolean hasGeneratedBiomes;
+	private boolean hasGeneratedTrees;
+
+	// Set on every GenCache hit, cleared as the cache's clock hand passes.
+	volatile boolean recentlyUsed = true;
 
 	public GenerationInfo(long salt, int cx, int cz, WorldType type) {
 		randSeed = salt;
@@ -62,6 +70,8 @@ public class GenerationInfo {
 		coalSeed = splitMix();
 		ironSeed = splitMix();
 		goldSeed = splitMix();
+		// Derived rather than drawn from splitMix(), so the seeds drawn later stay the same.
+		randomSeed = mix(goldSeed);
 
 		worldType = type;
 		waterLevel = worldType == WorldType.Normal ? 0 : 2;
@@ -72,7 +82,7 @@ public class GenerationInfo {
 		chunkZ = cz;
 	}
 
-	public void generate() {
+	public synchronized void generate() {
 		if (hasGenerated) {
 			return;
 		}
@@ -101,16 +111,28 @@ public class GenerationInfo {
 
 		final long seed = splitMix();
 
+		int x0 = chunkX * Chunk.LENGTH;
+		int z0 = chunkZ * Chunk.LENGTH;
+		float[] baseNoise = new float[Chunk.AREA];
+		float[] hillNoise = new float[Chunk.AREA];
+		float[] sNoise = new float[Chunk.AREA];
+		float[] cliffNoise = new float[Chunk.AREA];
+		float[] cliffHeightNoise = new float[Chunk.AREA];
+		OpenSimplex2Octaves.noise2Grid(baseSeed, baseOctaves, x0, z0, 1, baseScale, Chunk.LENGTH, Chunk.LENGTH, baseNoise);
+		OpenSimplex2Octaves.noise2Grid(hillSeed, hillOctaves, x0, z0, 1, hillScale, Chunk.LENGTH, Chunk.LENGTH, hillNoise);
+		OpenSimplex2Octaves.noise2Grid(seed, 2, x0, z0, 1, baseScale, Chunk.LENGTH, Chunk.LENGTH, sNoise);
+		OpenSimplex2Octaves.noise2Grid(cliffSeed, cliffOctaves, x0, z0, 1, cliffScale, Chunk.LENGTH, Chunk.LENGTH, cliffNoise);
+		OpenSimplex2Octaves.noise2Grid(cliffHeightSeed, cliffHeightOctaves, x0, z0, 1, cliffHeightScale, Chunk.LENGTH, Chunk.LENGTH, cliffHeightNoise);
+
 		for (int x = 0; x < Chunk.LENGTH; x++) {
 			for (int z = 0; z < Chunk.LENGTH; z++) {
-				int xx = (chunkX * Chunk.LENGTH + x);
-				int zz = (chunkZ * Chunk.LENGTH + z);
+				int i = x + z * Chunk.LENGTH;
 
-				float baseHeight = OpenSimplex2Octaves.noise2(baseSeed, baseOctaves, xx / baseScale, zz / baseScale);
-				float hill = OpenSimplex2Octaves.noise2(hillSeed, hillOctaves, xx / hillScale, zz / hillScale);
+				float baseHeight = baseNoise[i];
+				float hill = hillNoise[i];
 				hill = 1.0f - (float) Math.sin(MathUtil.threshold(hill, hillThresholdMin, hillThresholdMax) * MathUtil.PI_F / 2.0f);
 
-				float s = OpenSimplex2Octaves.noise2(seed, 2, xx / baseScale, zz / baseScale);
+				float s = sNoise[i];
 
 				if (worldType == WorldType.Chaotic) {
 					baseHeight = MathUtil.floorMod(baseHeight, s);
@@ -122,8 +144,8 @@ public class GenerationInfo {
 				float addedBaseHeight = baseHeightScale * MathUtil.lerp(mod, hillHeightScaleMod, hill);
 				baseHeight = baseHeight * addedBaseHeight + hill * hillHeightScale;
 
-				float cliff = OpenSimplex2Octaves.noise2(cliffSeed, cliffOctaves, xx / cliffScale, zz / cliffScale);
-				float cliffHeight = OpenSimplex2Octaves.noise2(cliffHeightSeed, cliffHeightOctaves, xx / cliffHeightScale, zz / cliffHeightScale);
+				float cliff = cliffNoise[i];
+				float cliffHeight = cliffHeightNoise[i];
 				cliffHeight = MathUtil.lerp(cliffHeightMin, cliffHeightMax, cliffHeight / 2.0f + 0.5f) * (1.0f - hill * 5.0f);
 
 				if (worldType == WorldType.Chaotic) {
@@ -142,24 +164,34 @@ public class GenerationInfo {
 				baseHeight = baseHeight < waterLevel-3 ? -(float)Math.log(Math.pow(Math.abs(baseHeight), 7)) + 6 : baseHeight;
 				
 
-				height[x + z * Chunk.LENGTH] = baseHeight;
+				height[i] = baseHeight;
 			}
 		}      
 	}
 
-	public void treeGen() {
+	public synchronized void treeGen() {
+		if (hasGeneratedTrees) {
+			return;
+		}
+		hasGeneratedTrees = true;
+
+		double baseScale = 1;
+
 		for (int x = 0; x < Chunk.LENGTH; x++) {
 			for (int z = 0; z < Chunk.LENGTH; z++) {
+				Biomes biome = getBiome(x, z);
+
+				// Trees never grow in these biomes, so there's no need to sample the noise.
+				if (biome == Biomes.Desert || biome == Biomes.Plains) {
+					trees[x + z * Chunk.LENGTH] = 0;
+					continue;
+				}
+
 				int xx = (chunkX * Chunk.LENGTH + x);
 				int zz = (chunkZ * Chunk.LENGTH + z);
-				Biomes biome = getBiome(x, z);
 
-				double baseScale = 1;
 				double threshold = biome == Biomes.Forest ? 0.7 : 0.5;
-				threshold = (biome == Biomes.Desert || biome == Biomes.Plains) ? 8008135 : threshold;
-
-				double largeThreshold = biome == Biomes.Forest ? 0.8 : 0.8;
-				largeThreshold = (biome == Biomes.Desert || biome == Biomes.Plains) ? 102496 : largeThreshold;
+				double largeThreshold = 0.8;
 
 				float tree = OpenSimplex2Octaves.noise2(treeSeed, 5, xx / baseScale, zz / baseScale);
 
@@ -172,15 +204,49 @@ public class GenerationInfo {
 	}
 
 	public void biomeGen() {
-		for (int x = 0; x < Chunk.LENGTH; x++) {
-			for (int z = 0; z < Chunk.LENGTH; z++) {
+		biomeGen(BIOME_RESOLUTION_POW2);
+	}
 
-				int xx = (chunkX * Chunk.LENGTH + x);
-				int zz = (chunkZ * Chunk.LENGTH + z);
+	// Other resolutions are for comparing against in tests.
+	synchronized void biomeGen(int resolutionPow2) {
+		if (hasGeneratedBiomes) {
+			return;
+		}
+		hasGeneratedBiomes = true;
+
+		// Biomes change over hundreds of blocks, so the noise is only sampled every few blocks
+		// and interpolated in between.
+		final int resolution = 1 << resolutionPow2;
+		final int samples = (Chunk.LENGTH >> resolutionPow2) + 1;
+		final float scale = 500;
+
+		float[] heatSamples = new float[samples * samples];
+		float[] moistSamples = new float[samples * samples];
+		if (resolutionPow2 > 0) {
+			OpenSimplex2Octaves.noise2Grid(biomeSeed, 2, chunkX * Chunk.LENGTH, chunkZ * Chunk.LENGTH, resolution, scale,
+					samples, samples, heatSamples);
+			OpenSimplex2Octaves.noise2Grid(secondBiomeSeed, 2, chunkX * Chunk.LENGTH, chunkZ * Chunk.LENGTH, resolution, scale,
+					samples, samples, moistSamples);
+		}
 
-				float scale = 500;
-				float heat = OpenSimplex2Octaves.noise2(biomeSeed, 2, xx / scale, zz / scale);
-				float moist = OpenSimplex2Octaves.noise2(secondBiomeSeed, 2, xx / scale, zz / scale);
+		for (int x = 0; x < Chunk.LENGTH; x++) {
+			for (int z = 0; z < Chunk.LENGTH; z++) {
+				float heat;
+				float moist;
+				if (resolutionPow2 > 0) {
+					int i = (x >> resolutionPow2) + (z >> resolutionPow2) * samples;
+					float tx = (x & resolution - 1) / (float) resolution;
+					float tz = (z & resolution - 1) / (float) resolution;
+
+					heat = bilinear(heatSamples, i, samples, tx, tz);
+					moist = bilinear(moistSamples, i, samples, tx, tz);
+				} else {
+					// Per block, exactly as biomes were generated before they were interpolated.
+					int xx = (chunkX * Chunk.LENGTH + x);
+					int zz = (chunkZ * Chunk.LENGTH + z);
+					heat = OpenSimplex2Octaves.noise2(biomeSeed, 2, xx / scale, zz / scale);
+					moist = OpenSimplex2Octaves.noise2(secondBiomeSeed, 2, xx / scale, zz / scale);
+				}
 
 				if (heat > 0 && moist > 0) {
 					biomes[x + z * Chunk.LENGTH] =  Biomes.Jungle;
@@ -197,6 +263,12 @@ public class GenerationInfo {
 		}
 	}
 
+	private static float bilinear(float[] samples, int i, int length, float tx, float tz) {
+		float c0 = MathUtil.lerp(samples[i], samples[i + 1], tx);
+		float c1 = MathUtil.lerp(samples[i + length], samples[i + length + 1], tx);
+		return MathUtil.lerp(c0, c1, tz);
+	}
+
 	//im not going to use this for biomes cuz math is too much mathing
 	/*
 	public void voronoiSeedsGen(int x,int z) {
@@ -220,12 +292,22 @@ public class GenerationInfo {
 	}
 */
 	private long splitMix() {
-		long z = (randSeed += 0x9e3779b97f4a7c15L);
-	    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
-        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return mix(randSeed += 0x9e3779b97f4a7c15L);
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
 		return z ^ z >>> 31;
 	}
 
+	// A value from 0 to 1 that only depends on the seed and the block position, so random
+	// choices come out the same whichever thread or order chunks are generated in.
+	public float randomAt(int x, int y, int z) {
+		long h = randomSeed ^ x * 0x9e3779b97f4a7c15L ^ y * 0xc2b2ae3d27d4eb4fL ^ z * 0x165667b19e3779f9L;
+		return (mix(h) >>> 40) * 0x1.0p-24f;
+	}
+
 	public float getHeight(int x, int z) {
 		return height[x + z * Chunk.LENGTH];
 	}
@@ -254,57 +336,21 @@ public class GenerationInfo {
 	}
 
 
-	public boolean getCave(int x, int y, int z) {
-		if (lastQueryLayer != y >> Chunk.SIZE_POW2) {
-			generateCaves(y >> Chunk.SIZE_POW2);
+	public synchronized float[] getCaveSamples(int layer) {
+		float[] samples = caveSamples.get(layer);
+		if (samples != null) {
+			return samples;
 		}
 
-		final float cheeseMinDensity = -1.0f;
-		final float cheeseMaxDensity = -0.3f;
-		final float cheeseDensitySpread = 100.0f;
-		final float cheeseDensitySurface = -0.5f;
-
-		int shiftPow2 = Chunk.SIZE_POW2 - 3;
-		int shiftMask = 3;
-		int shiftDiv = 4;
-		int xx = x >> shiftPow2;
-		int yy = (y & Chunk.LENGTH_MASK) >> shiftPow2;
-		int zz = z >> shiftPow2;
-
-		float c000 = caveInfo[MathUtil.index3D(xx, yy, zz, LERP_MAP_LENGTH)];
-		float c001 = caveInfo[MathUtil.index3D(xx, yy, zz + 1, LERP_MAP_LENGTH)];
-		float c010 = caveInfo[MathUtil.index3D(xx, yy + 1, zz, LERP_MAP_LENGTH)];
-		float c011 = caveInfo[MathUtil.index3D(xx, yy + 1, zz + 1, LERP_MAP_LENGTH)];
-		float c100 = caveInfo[MathUtil.index3D(xx + 1, yy, zz, LERP_MAP_LENGTH)];
-		float c101 = caveInfo[MathUtil.index3D(xx + 1, yy, zz + 1, LERP_MAP_LENGTH)];
-		float c110 = caveInfo[MathUtil.index3D(xx + 1, yy + 1, zz, LERP_MAP_LENGTH)];
-		float c111 = caveInfo[MathUtil.index3D(xx + 1, yy + 1, zz + 1, LERP_MAP_LENGTH)];
-		float caveInfo = MathUtil.trilinear(c000, c001, c010, c011, c100, c101, c110, c111,
-					(x & shiftMask) / (float) shiftDiv, (y & shiftMask) / (float) shiftDiv, (z & shiftMask) / (float) shiftDiv);
-		float cheeseThreshold = MathUtil.clamp(-y / cheeseDensitySpread + cheeseDensitySurface, cheeseMinDensity, cheeseMaxDensity);
-		return caveInfo < cheeseThreshold;
-	}
-
-	private void generateCaves(int layer) {
-		lastQueryLayer = layer;
-		Arrays.fill(caveInfo, 0);
-
 		final int cheeseOctaves = 4;
 		final double cheeseScaleXZ = 100.0;
 		final double cheeseScaleY = 50.0;
 
-
-		for (int x = 0; x < LERP_MAP_LENGTH; x++) {
-			for (int y = 0; y < LERP_MAP_LENGTH; y++) {
-				for (int z = 0; z < LERP_MAP_LENGTH; z++) {
-					int xx = (x << (Chunk.SIZE_POW2 - 3)) + (chunkX << Chunk.SIZE_POW2);
-					int yy = (y << (Chunk.SIZE_POW2 - 3)) + (layer << Chunk.SIZE_POW2);
-					int zz = (z << (Chunk.SIZE_POW2 - 3)) + (chunkZ << Chunk.SIZE_POW2);
-
-					float cheese = OpenSimplex2Octaves.noise3_ImproveXZ(caveSeed, cheeseOctaves, xx / cheeseScaleXZ, yy / cheeseScaleY, zz / cheeseScaleXZ);
-					caveInfo[MathUtil.index3D(x, y, z, LERP_MAP_LENGTH)] = cheese;
-				}
-			}
-		}
-	} 
+		samples = new float[CaveLattice.CELL_VOLUME];
+		OpenSimplex2Octaves.noise3Grid_ImproveXZ(caveSeed, cheeseOctaves,
+				chunkX << Chunk.SIZE_POW2, layer << Chunk.SIZE_POW2, chunkZ << Chunk.SIZE_POW2, 1 << CaveLattice.SHIFT_POW2,
+				cheeseScaleXZ, cheeseScaleY, CaveLattice.CELL_LENGTH, CaveLattice.CELL_LENGTH, CaveLattice.CELL_LENGTH, samples);
+		caveSamples.put(layer, samples);
+		return samples;
+	}
 }
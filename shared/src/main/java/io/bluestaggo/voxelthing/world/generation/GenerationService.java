@@ -0,0 +1,209 @@
+package io.bluestaggo.voxelthing.world.generation;
+
+import io.bluestaggo.voxelthing.world.Chunk;
+import io.bluestaggo.voxelthing.world.World;
+import io.bluestaggo.voxelthing.world.storage.ChunkStorage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Loads or generates chunks in the background. Each request is first handed to the I/O
+// thread, which reads the chunk from the save handler, and only goes to the generator
+// pool if nothing was saved. Everything except the tasks themselves runs on the main
+// thread, which picks up finished chunks through pollFinished().
+public class GenerationService {
+	private static final int THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+	private final World world;
+	private final ChunkGenerator generator;
+	private final ThreadPoolExecutor ioExecutor;
+	private final ThreadPoolExecutor executor;
+	private final Map<Long, Task> tasks = new HashMap<>();
+	private final Queue<Task> finished = new ConcurrentLinkedQueue<>();
+
+	private int centerX, centerY, centerZ;
+	private int radius = Integer.MAX_VALUE;
+
+	public GenerationService(World world, ChunkGenerator generator) {
+		this.world = world;
+		this.generator = generator;
+
+		ioExecutor = createExecutor("Chunk I/O", 1);
+		executor = createExecutor("Chunk Generator", THREAD_COUNT);
+	}
+
+	private static ThreadPoolExecutor createExecutor(String name, int threads) {
+		AtomicInteger threadCount = new AtomicInteger();
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new PriorityBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, name + " " + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				});
+	}
+
+	private boolean inRange(int x, int y, int z) {
+		return Math.abs(x - centerX) <= radius
+				&& Math.abs(y - centerY) <= radius
+				&& Math.abs(z - centerZ) <= radius;
+	}
+
+	private int distanceSquared(int x, int y, int z) {
+		x -= centerX;
+		y -= centerY;
+		z -= centerZ;
+		return x * x + y * y + z * z;
+	}
+
+	public void request(int x, int y, int z) {
+		if (!inRange(x, y, z)) {
+			return;
+		}
+
+		long key = ChunkStorage.chunkKey(x, y, z);
+		if (tasks.containsKey(key)) {
+			return;
+		}
+
+		Task task = new Task(x, y, z);
+		task.priority = distanceSquared(x, y, z);
+		tasks.put(key, task);
+		ioExecutor.execute(task);
+	}
+
+	public void setCenter(int x, int y, int z, int radius) {
+		centerX = x;
+		centerY = y;
+		centerZ = z;
+		this.radius = radius;
+
+		tasks.values().removeIf(task -> {
+			if (inRange(task.x, task.y, task.z)) {
+				return false;
+			}
+			task.cancelled = true;
+			return true;
+		});
+
+		reprioritize(ioExecutor);
+		reprioritize(executor);
+	}
+
+	private void reprioritize(ThreadPoolExecutor executor) {
+		List<Runnable> queued = new ArrayList<>();
+		executor.getQueue().drainTo(queued);
+		for (Runnable runnable : queued) {
+			Task task = (Task) runnable;
+			if (!task.cancelled) {
+				task.priority = distanceSquared(task.x, task.y, task.z);
+				executor.getQueue().add(task);
+			}
+		}
+	}
+
+	// Returns the next finished task, or null if there are none left.
+	public Task pollFinished() {
+		Task task;
+		while ((task = finished.poll()) != null) {
+			long key = ChunkStorage.chunkKey(task.x, task.y, task.z);
+			if (tasks.get(key) == task) {
+				tasks.remove(key);
+				if (task.chunk != null) {
+					return task;
+				}
+			}
+		}
+		return null;
+	}
+
+	public int getPendingCount() {
+		return tasks.size();
+	}
+
+	public void shutdown() {
+		for (Task task : tasks.values()) {
+			task.cancelled = true;
+		}
+		tasks.clear();
+		finished.clear();
+		ioExecutor.shutdownNow();
+		executor.shutdownNow();
+	}
+
+	public class Task implements Runnable, Comparable<Task> {
+		private final int x, y, z;
+		private int priority;
+		private volatile boolean cancelled;
+		private boolean loadAttempted;
+		private Chunk chunk;
+
+		private Task(int x, int y, int z) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+
+		public Chunk getChunk() {
+			return chunk;
+		}
+
+		@Override
+		public void run() {
+			if (cancelled) {
+				return;
+			}
+
+			if (!loadAttempted) {
+				loadAttempted = true;
+				load();
+				if (chunk == null) {
+					try {
+						executor.execute(this);
+					} catch (RejectedExecutionException ignored) {
+						// the service was shut down while this chunk was being read
+					}
+					return;
+				}
+			} else {
+				generate();
+			}
+
+			if (!cancelled) {
+				finished.add(this);
+			}
+		}
+
+		private void load() {
+			try {
+				chunk = world.saveHandler.loadChunk(world, x, y, z);
+			} catch (Throwable e) {
+				System.out.println("Failed to load chunk at " + x + ", " + y + ", " + z + ", regenerating");
+				e.printStackTrace();
+			}
+		}
+
+		private void generate() {
+			try {
+				chunk = generator.generate(x, y, z);
+			} catch (Throwable e) {
+				System.out.println("Failed to generate chunk at " + x + ", " + y + ", " + z);
+				e.printStackTrace();
+			}
+		}
+
+		@Override
+		public int compareTo(Task o) {
+			return Integer.compare(priority, o.priority);
+		}
+	}
+}
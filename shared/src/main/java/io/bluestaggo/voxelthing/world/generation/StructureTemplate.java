@@ -0,0 +1,115 @@
+package io.bluestaggo.voxelthing.world.generation;
+
+import io.bluestaggo.voxelthing.world.block.Block;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A structure compiled into runs of the same block along z, the axis block storage keeps
+// contiguous, so it can be pasted a span at a time. Run positions are offsets from the origin
+// the structure is placed at, already negated the way Structures lays blocks out.
+public class StructureTemplate {
+	public final int minX, minY, minZ;
+	public final int maxX, maxY, maxZ;
+
+	private final int[] runX;
+	private final int[] runY;
+	private final int[] runZ;
+	private final int[] runLength;
+	private final Block[] runBlock;
+
+	private StructureTemplate(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, List<int[]> runs, List<Block> blocks) {
+		this.minX = minX;
+		this.minY = minY;
+		this.minZ = minZ;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.maxZ = maxZ;
+
+		runX = new int[runs.size()];
+		runY = new int[runs.size()];
+		runZ = new int[runs.size()];
+		runLength = new int[runs.size()];
+		runBlock = blocks.toArray(new Block[0]);
+		for (int i = 0; i < runs.size(); i++) {
+			int[] run = runs.get(i);
+			runX[i] = run[0];
+			runY[i] = run[1];
+			runZ[i] = run[2];
+			runLength[i] = run[3];
+		}
+	}
+
+	public static StructureTemplate compile(blockInStructure[] structure) {
+		if (structure.length == 0) {
+			return new StructureTemplate(0, 0, 0, -1, -1, -1, List.of(), List.of());
+		}
+
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+		for (blockInStructure s : structure) {
+			minX = Math.min(minX, -s.x);
+			minY = Math.min(minY, -s.y);
+			minZ = Math.min(minZ, -s.z);
+			maxX = Math.max(maxX, -s.x);
+			maxY = Math.max(maxY, -s.y);
+			maxZ = Math.max(maxZ, -s.z);
+		}
+
+		// Laid out densely first, with later blocks replacing earlier ones like they would when placed in order.
+		int sizeX = maxX - minX + 1;
+		int sizeY = maxY - minY + 1;
+		int sizeZ = maxZ - minZ + 1;
+		Block[] dense = new Block[sizeX * sizeY * sizeZ];
+		for (blockInStructure s : structure) {
+			dense[((-s.x - minX) * sizeY + (-s.y - minY)) * sizeZ + (-s.z - minZ)] = s.block;
+		}
+
+		List<int[]> runs = new ArrayList<>();
+		List<Block> blocks = new ArrayList<>();
+		for (int x = 0; x < sizeX; x++) {
+			for (int y = 0; y < sizeY; y++) {
+				int row = (x * sizeY + y) * sizeZ;
+				int z = 0;
+				while (z < sizeZ) {
+					Block block = dense[row + z];
+					int start = z;
+					while (z < sizeZ && dense[row + z] == block) {
+						z++;
+					}
+
+					if (block != null) {
+						runs.add(new int[] { x + minX, y + minY, start + minZ, z - start });
+						blocks.add(block);
+					}
+				}
+			}
+		}
+
+		return new StructureTemplate(minX, minY, minZ, maxX, maxY, maxZ, runs, blocks);
+	}
+
+	public int getRunCount() {
+		return runBlock.length;
+	}
+
+	public int getRunX(int run) {
+		return runX[run];
+	}
+
+	public int getRunY(int run) {
+		return runY[run];
+	}
+
+	public int getRunZ(int run) {
+		return runZ[run];
+	}
+
+	public int getRunLength(int run) {
+		return runLength[run];
+	}
+
+	public Block getRunBlock(int run) {
+		return runBlock[run];
+	}
+}
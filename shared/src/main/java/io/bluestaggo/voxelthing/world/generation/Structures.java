@@ -23,15 +23,21 @@ public enum Structures {
     ;
 
     private blockInStructure[] blocks;
+    private final StructureTemplate template;
 
     Structures(blockInStructure[] blocks) {
         this.blocks = blocks;
+        this.template = StructureTemplate.compile(blocks);
     }
 
     public blockInStructure[] getStructure() {
         return this.blocks;
     }
 
+    public StructureTemplate getTemplate() {
+        return this.template;
+    }
+
     	//shorter way of new Structure
 	public static blockInStructure s(Block block, int x, int y, int z) {
 		return new blockInStructure(block, x, y, z);
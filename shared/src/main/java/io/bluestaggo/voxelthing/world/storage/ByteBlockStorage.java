@@ -5,6 +5,7 @@ import io.bluestaggo.voxelthing.world.BlockStorage;
 import io.bluestaggo.voxelthing.world.Chunk;
 import io.bluestaggo.voxelthing.world.block.Block;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public class ByteBlockStorage extends BlockStorage {
@@ -20,9 +21,10 @@ public class ByteBlockStorage extends BlockStorage {
 		blocks = new byte[Chunk.VOLUME];
 	}
 
-	public ByteBlockStorage(List<Block> palette, byte[] bytes) {
+	public ByteBlockStorage(List<Block> palette, ByteBuffer bytes) {
 		super(palette);
-		blocks = bytes;
+		blocks = new byte[bytes.remaining()];
+		bytes.get(blocks);
 		updateBlockCounts();
 	}
 
@@ -34,7 +36,7 @@ public class ByteBlockStorage extends BlockStorage {
 
 	@Override
 	protected int getBlockId(int x, int y, int z) {
-		return blocks[MathUtil.index3D(x, y, z, Chunk.LENGTH)];
+		return blocks[MathUtil.index3D(x, y, z, Chunk.LENGTH)] & 0xFF;
 	}
 
 	@Override
@@ -47,8 +49,18 @@ public class ByteBlockStorage extends BlockStorage {
 		return 256;
 	}
 
+	@Override
+	public BlockStorage expand() {
+		return new PackedBlockStorage(this, 9);
+	}
+
 	@Override
 	public byte[] getBytes() {
 		return blocks;
 	}
+
+	@Override
+	public int getMemoryUsage() {
+		return blocks.length;
+	}
 }
@@ -0,0 +1,207 @@
+package io.bluestaggo.voxelthing.world.storage;
+
+import io.bluestaggo.pds.ByteArrayItem;
+import io.bluestaggo.pds.CompoundItem;
+import io.bluestaggo.pds.StructureItem;
+import io.bluestaggo.voxelthing.world.Chunk;
+import io.bluestaggo.voxelthing.world.World;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Writes chunks to another save handler on a background thread. The data handed to
+// saveChunkData() must be a snapshot that is never modified afterwards, since it is kept
+// around until it is written. Saving the same chunk again before it has been written only
+// replaces the snapshot, and loading a chunk that is still queued returns the snapshot.
+public class ChunkSaveQueue implements ISaveHandler {
+	private static final int FLUSH_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+	private final ISaveHandler saveHandler;
+	private final Map<Long, PendingSave> pending = new ConcurrentHashMap<>();
+	private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+	private final Thread writerThread;
+	private volatile boolean running = true;
+
+	private final AtomicLong bytesWritten = new AtomicLong();
+	private long lastRateTime = System.nanoTime();
+	private long lastRateBytes;
+	private long bytesPerSecond;
+
+	public ChunkSaveQueue(ISaveHandler saveHandler) {
+		this.saveHandler = saveHandler;
+
+		writerThread = new Thread(this::writeLoop, "Chunk Saver");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	@Override
+	public CompoundItem loadData(String type) {
+		return saveHandler.loadData(type);
+	}
+
+	@Override
+	public void saveData(String type, CompoundItem data) {
+		saveHandler.saveData(type, data);
+	}
+
+	@Override
+	public CompoundItem loadChunkData(int x, int y, int z) {
+		PendingSave save = pending.get(ChunkStorage.chunkKey(x, y, z));
+		if (save != null) {
+			return save.data;
+		}
+		return saveHandler.loadChunkData(x, y, z);
+	}
+
+	@Override
+	public Chunk loadChunk(World world, int x, int y, int z) {
+		PendingSave save = pending.get(ChunkStorage.chunkKey(x, y, z));
+		if (save != null) {
+			try {
+				return Chunk.deserialize(world, x, y, z, save.data);
+			} catch (IOException e) {
+				System.out.println("Failed to read chunk at " + x + ", " + y + ", " + z);
+				e.printStackTrace();
+				return null;
+			}
+		}
+		return saveHandler.loadChunk(world, x, y, z);
+	}
+
+	@Override
+	public void saveChunkData(int x, int y, int z, CompoundItem data) {
+		long key = ChunkStorage.chunkKey(x, y, z);
+		if (pending.put(key, new PendingSave(x, y, z, data)) == null) {
+			queue.add(key);
+		}
+	}
+
+	private void writeLoop() {
+		while (running) {
+			Long key;
+			try {
+				key = queue.poll(100, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				break;
+			}
+			if (key != null) {
+				write(key);
+			}
+		}
+	}
+
+	private void write(long key) {
+		PendingSave save = pending.get(key);
+		if (save == null) {
+			return;
+		}
+
+		try {
+			saveHandler.saveChunkData(save.x, save.y, save.z, save.data);
+			bytesWritten.addAndGet(save.size);
+		} catch (Throwable e) {
+			System.out.println("Failed to save chunk at " + save.x + ", " + save.y + ", " + save.z);
+			e.printStackTrace();
+		}
+
+		// The snapshot stays visible to loadChunkData() until it is on disk. If the chunk was
+		// saved again in the meantime, the newer snapshot still needs writing.
+		if (!pending.remove(key, save)) {
+			queue.add(key);
+		}
+	}
+
+	// Writes everything still queued, spread over several threads, and waits until it is done.
+	public void flush() {
+		List<Long> keys = new ArrayList<>();
+		queue.drainTo(keys);
+		if (keys.isEmpty()) {
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(FLUSH_THREADS, keys.size()));
+		for (Long key : keys) {
+			executor.execute(() -> write(key));
+		}
+		executor.shutdown();
+
+		try {
+			while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+				System.out.println("Waiting for " + getQueueDepth() + " chunks to save...");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		// A chunk saved again while it was being written gets queued once more.
+		flush();
+	}
+
+	public int getQueueDepth() {
+		return pending.size();
+	}
+
+	public long getBytesWritten() {
+		return bytesWritten.get();
+	}
+
+	// Averaged over at least the last second.
+	public synchronized long getBytesPerSecond() {
+		long time = System.nanoTime();
+		long elapsed = time - lastRateTime;
+		if (elapsed >= TimeUnit.SECONDS.toNanos(1)) {
+			long bytes = bytesWritten.get();
+			bytesPerSecond = (bytes - lastRateBytes) * TimeUnit.SECONDS.toNanos(1) / elapsed;
+			lastRateBytes = bytes;
+			lastRateTime = time;
+		}
+		return bytesPerSecond;
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		try {
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		flush();
+		saveHandler.close();
+	}
+
+	private static int payloadSize(CompoundItem data) {
+		int size = 0;
+		for (StructureItem item : data.map.values()) {
+			if (item instanceof ByteArrayItem byteArray) {
+				size += byteArray.value.length;
+			}
+		}
+		return size;
+	}
+
+	private static class PendingSave {
+		private final int x, y, z;
+		private final CompoundItem data;
+		private final int size;
+
+		private PendingSave(int x, int y, int z, CompoundItem data) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.data = data;
+			size = payloadSize(data);
+		}
+	}
+}
@@ -4,31 +4,100 @@ import io.bluestaggo.pds.CompoundItem;
 import io.bluestaggo.voxelthing.world.Chunk;
 import io.bluestaggo.voxelthing.world.World;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+// Holds loaded chunks in an open addressing hash table keyed by chunkKey(). Chunks are only
+// unloaded by evict(), which drops chunks far away from the load center and, when the
+// estimated memory use goes over budget, the least recently used chunks outside the load radius.
+// Lookups are safe from any thread and normally take no lock: they probe the table
+// optimistically and only retry under the read lock if a write happened meanwhile.
+// Changes to the table are made under the write lock.
 public class ChunkStorage {
-	public static final int RADIUS_POW2 = 5;
-	public static final int VOLUME = 1 << RADIUS_POW2 * 3;
-	public static final int POS_MASK = (1 << RADIUS_POW2) - 1;
+	private static final int DEFAULT_CAPACITY = 1024;
+	private static final int MEMORY_CHECK_INTERVAL = 60;
+	// Chunks this far beyond the load radius are kept, so moving back and forth doesn't reload them.
+	private static final int UNLOAD_MARGIN = 2;
 
 	private final World world;
-	private final Chunk[] chunks = new Chunk[VOLUME];
+	private final StampedLock lock = new StampedLock();
+	private long[] keys = new long[DEFAULT_CAPACITY];
+	private Chunk[] chunks = new Chunk[DEFAULT_CAPACITY];
+	private int mask = DEFAULT_CAPACITY - 1;
+	private volatile int size;
+
+	private int centerX, centerY, centerZ;
+	private int radius = Integer.MAX_VALUE;
+	private boolean centerChanged;
+	private long memoryBudget = Math.min(Runtime.getRuntime().maxMemory() / 4, 1L << 30);
+	private long accessTick;
+	private int ticksUntilMemoryCheck;
 
 	public ChunkStorage(World world) {
 		this.world = world;
 	}
 
-	public static int storageCoords(int x, int y, int z) {
-		x &= POS_MASK;
-		y &= POS_MASK;
-		z &= POS_MASK;
-		return (x << RADIUS_POW2 | z) << RADIUS_POW2 | y;
+	public static long chunkKey(int x, int y, int z) {
+		return ((long) x & 0x1FFFFF) << 42 | ((long) y & 0x1FFFFF) << 21 | (long) z & 0x1FFFFF;
 	}
 
-	public Chunk getChunkAt(int x, int y, int z) {
-		Chunk chunk = chunks[storageCoords(x, y, z)];
-		if (chunk == null || chunk.x != x || chunk.y != y || chunk.z != z) {
+	private static int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xFF51AFD7ED558CCDL;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+	private int indexOf(long key) {
+		return indexOf(keys, chunks, key);
+	}
+
+	// Gives up after visiting every slot, since an optimistic read may see the table mid-change.
+	private static int indexOf(long[] keys, Chunk[] chunks, long key) {
+		int mask = chunks.length - 1;
+		int i = hash(key) & mask;
+		for (int n = 0; n <= mask && chunks[i] != null; n++) {
+			if (keys[i] == key) {
+				return i;
+			}
+			i = i + 1 & mask;
+		}
+		return -1;
+	}
+
+	private Chunk find(long key) {
+		long[] keys = this.keys;
+		Chunk[] chunks = this.chunks;
+		if (keys.length != chunks.length) {
 			return null;
 		}
 
+		int i = indexOf(keys, chunks, key);
+		return i == -1 ? null : chunks[i];
+	}
+
+	public Chunk getChunkAt(int x, int y, int z) {
+		long key = chunkKey(x, y, z);
+
+		long stamp = lock.tryOptimisticRead();
+		Chunk chunk = find(key);
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				chunk = find(key);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		// Generator and mesher threads look chunks up too, so this races with evict(). A stale
+		// tick only makes a chunk look a little older, which is fine for picking what to unload.
+		if (chunk != null) {
+			chunk.lastAccessTick = accessTick;
+		}
 		return chunk;
 	}
 
@@ -38,37 +107,225 @@ public class ChunkStorage {
 			return chunk;
 		}
 
-		chunk = chunks[storageCoords(x, y, z)];
-		if (chunk != null) {
-			chunk.onUnload();
-			chunks[storageCoords(x, y, z)] = null;
-		}
 		chunk = new Chunk(world, x, y, z);
-		chunks[storageCoords(x, y, z)] = chunk;
+		putChunk(chunk);
 		return chunk;
 	}
 
-	public Chunk deserializeChunkAt(int x, int y, int z, CompoundItem item) {
+	public void putChunk(Chunk chunk) {
+		long key = chunkKey(chunk.x, chunk.y, chunk.z);
+		chunk.lastAccessTick = accessTick;
+		Chunk oldChunk = null;
+
+		long stamp = lock.writeLock();
+		try {
+			int i = hash(key) & mask;
+			while (chunks[i] != null && keys[i] != key) {
+				i = i + 1 & mask;
+			}
+
+			if (chunks[i] == null) {
+				keys[i] = key;
+				chunks[i] = chunk;
+				if (++size > chunks.length / 2) {
+					resize(chunks.length * 2);
+				}
+			} else if (chunks[i] != chunk) {
+				oldChunk = chunks[i];
+				chunks[i] = chunk;
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+
+		if (oldChunk != null) {
+			oldChunk.onUnload();
+		}
+	}
+
+	public Chunk deserializeChunkAt(int x, int y, int z, CompoundItem item) throws IOException {
 		Chunk chunk = getChunkAt(x, y, z);
 		if (chunk != null) {
 			return chunk;
 		}
 
-		chunk = chunks[storageCoords(x, y, z)];
+		chunk = Chunk.deserialize(world, x, y, z, item);
+		putChunk(chunk);
+		return chunk;
+	}
+
+	public void unloadChunkAt(int x, int y, int z) {
+		Chunk chunk = null;
+
+		long stamp = lock.writeLock();
+		try {
+			int i = indexOf(chunkKey(x, y, z));
+			if (i != -1) {
+				chunk = chunks[i];
+				removeAt(i);
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+
 		if (chunk != null) {
 			chunk.onUnload();
-			chunks[storageCoords(x, y, z)] = null;
 		}
-		chunk = Chunk.deserialize(world, x, y, z, item);
-		chunks[storageCoords(x, y, z)] = chunk;
-		return chunk;
 	}
 
-	public void unloadAllChunks() {
+	// Backward shift deletion, so no tombstones are needed.
+	private void removeAt(int i) {
+		chunks[i] = null;
+		size--;
+
+		int j = i;
+		while (true) {
+			j = j + 1 & mask;
+			if (chunks[j] == null) {
+				return;
+			}
+
+			int home = hash(keys[j]) & mask;
+			if ((j - home & mask) >= (j - i & mask)) {
+				keys[i] = keys[j];
+				chunks[i] = chunks[j];
+				chunks[j] = null;
+				i = j;
+			}
+		}
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		Chunk[] oldChunks = chunks;
+		keys = new long[capacity];
+		chunks = new Chunk[capacity];
+		mask = capacity - 1;
+
+		for (int i = 0; i < oldChunks.length; i++) {
+			if (oldChunks[i] != null) {
+				int j = hash(oldKeys[i]) & mask;
+				while (chunks[j] != null) {
+					j = j + 1 & mask;
+				}
+				keys[j] = oldKeys[i];
+				chunks[j] = oldChunks[i];
+			}
+		}
+	}
+
+	public void setCenter(int x, int y, int z, int radius) {
+		if (x != centerX || y != centerY || z != centerZ || radius != this.radius) {
+			centerX = x;
+			centerY = y;
+			centerZ = z;
+			this.radius = radius;
+			centerChanged = true;
+		}
+	}
+
+	public void setMemoryBudget(long bytes) {
+		memoryBudget = bytes;
+	}
+
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	private boolean inRange(Chunk chunk, int margin) {
+		long limit = (long) radius + margin;
+		return Math.abs(chunk.x - centerX) <= limit
+				&& Math.abs(chunk.y - centerY) <= limit
+				&& Math.abs(chunk.z - centerZ) <= limit;
+	}
+
+	// Called once per update. Unloads, and so saves, chunks that are out of range or over budget.
+	public void evict() {
+		accessTick++;
+
+		if (centerChanged) {
+			centerChanged = false;
+			for (Chunk chunk : getChunks()) {
+				if (!inRange(chunk, UNLOAD_MARGIN)) {
+					unloadChunkAt(chunk.x, chunk.y, chunk.z);
+				}
+			}
+		}
+
+		if (--ticksUntilMemoryCheck > 0) {
+			return;
+		}
+		ticksUntilMemoryCheck = MEMORY_CHECK_INTERVAL;
+
+		long memory = getMemoryEstimate();
+		if (memory <= memoryBudget) {
+			return;
+		}
+
+		// Chunks within the load radius are never unloaded for memory, since they would just be
+		// requested again right away, and the player needs the ones around them for collision.
+		List<Chunk> loaded = getChunks();
+		loaded.sort(Comparator.comparingLong(chunk -> chunk.lastAccessTick));
+		for (Chunk chunk : loaded) {
+			if (memory <= memoryBudget) {
+				break;
+			}
+			if (inRange(chunk, 0)) {
+				continue;
+			}
+			memory -= chunk.getMemoryUsage();
+			unloadChunkAt(chunk.x, chunk.y, chunk.z);
+		}
+	}
+
+	public List<Chunk> getChunks() {
+		long stamp = lock.readLock();
+		try {
+			return getChunksUnlocked();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private List<Chunk> getChunksUnlocked() {
+		List<Chunk> loaded = new ArrayList<>(size);
 		for (Chunk chunk : chunks) {
 			if (chunk != null) {
-				chunk.onUnload();
+				loaded.add(chunk);
 			}
 		}
+		return loaded;
+	}
+
+	public int getChunkCount() {
+		return size;
+	}
+
+	public long getMemoryEstimate() {
+		List<Chunk> loaded = getChunks();
+		long memory = (long) chunks.length * 12;
+		for (Chunk chunk : loaded) {
+			memory += chunk.getMemoryUsage();
+		}
+		return memory;
+	}
+
+	public void unloadAllChunks() {
+		List<Chunk> loaded;
+
+		long stamp = lock.writeLock();
+		try {
+			loaded = getChunksUnlocked();
+			keys = new long[DEFAULT_CAPACITY];
+			chunks = new Chunk[DEFAULT_CAPACITY];
+			mask = DEFAULT_CAPACITY - 1;
+			size = 0;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+
+		for (Chunk chunk : loaded) {
+			chunk.onUnload();
+		}
 	}
 }
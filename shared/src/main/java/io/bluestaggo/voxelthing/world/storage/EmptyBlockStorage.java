@@ -3,13 +3,14 @@ package io.bluestaggo.voxelthing.world.storage;
 import io.bluestaggo.voxelthing.world.BlockStorage;
 import io.bluestaggo.voxelthing.world.block.Block;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public class EmptyBlockStorage extends BlockStorage {
 	public EmptyBlockStorage() {
 	}
 
-	public EmptyBlockStorage(List<Block> palette, byte[] bytes) {
+	public EmptyBlockStorage(List<Block> palette, ByteBuffer bytes) {
 	}
 
 	@Override
@@ -38,6 +39,11 @@ public class EmptyBlockStorage extends BlockStorage {
 
 	@Override
 	public BlockStorage expand() {
-		return new NibbleBlockStorage();
+		return new PackedBlockStorage(1);
+	}
+
+	@Override
+	public int getMemoryUsage() {
+		return 0;
 	}
 }
@@ -1,10 +1,34 @@
 package io.bluestaggo.voxelthing.world.storage;
 
 import io.bluestaggo.pds.CompoundItem;
+import io.bluestaggo.voxelthing.world.Chunk;
+import io.bluestaggo.voxelthing.world.World;
+
+import java.io.IOException;
 
 public interface ISaveHandler {
 	CompoundItem loadData(String type);
 	void saveData(String type, CompoundItem data);
 	CompoundItem loadChunkData(int x, int y, int z);
 	void saveChunkData(int x, int y, int z, CompoundItem data);
+
+	// Handlers that have the encoded chunk at hand can read it without building the item first.
+	// Returns null if the chunk wasn't saved or can't be read.
+	default Chunk loadChunk(World world, int x, int y, int z) {
+		CompoundItem data = loadChunkData(x, y, z);
+		if (data == null) {
+			return null;
+		}
+
+		try {
+			return Chunk.deserialize(world, x, y, z, data);
+		} catch (IOException e) {
+			System.out.println("Failed to read chunk at " + x + ", " + y + ", " + z);
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	default void close() {
+	}
 }
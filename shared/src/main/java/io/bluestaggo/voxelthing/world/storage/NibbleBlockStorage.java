@@ -5,6 +5,7 @@ import io.bluestaggo.voxelthing.world.BlockStorage;
 import io.bluestaggo.voxelthing.world.Chunk;
 import io.bluestaggo.voxelthing.world.block.Block;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public class NibbleBlockStorage extends BlockStorage {
@@ -20,9 +21,10 @@ public class NibbleBlockStorage extends BlockStorage {
 		blocks = new byte[Chunk.VOLUME / 2];
 	}
 
-	public NibbleBlockStorage(List<Block> palette, byte[] bytes) {
+	public NibbleBlockStorage(List<Block> palette, ByteBuffer bytes) {
 		super(palette);
-		blocks = bytes;
+		blocks = new byte[bytes.remaining()];
+		bytes.get(blocks);
 //		for (int i = 0; i < bytes.length; i++) {
 //			blocks[i] = (byte) ((bytes[i * 2] & 0xF) << 4 | bytes[i * 2 + 1] & 0xF);
 //		}
@@ -58,7 +60,7 @@ public class NibbleBlockStorage extends BlockStorage {
 
 	@Override
 	public BlockStorage expand() {
-		return new ByteBlockStorage(this);
+		return new PackedBlockStorage(this, 5);
 	}
 
 	public void copyBytes(byte[] bytes) {
@@ -71,4 +73,9 @@ public class NibbleBlockStorage extends BlockStorage {
 	public byte[] getBytes() {
 		return blocks;
 	}
+
+	@Override
+	public int getMemoryUsage() {
+		return blocks.length;
+	}
 }
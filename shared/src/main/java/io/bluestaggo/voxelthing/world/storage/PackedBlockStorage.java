@@ -0,0 +1,125 @@
+package io.bluestaggo.voxelthing.world.storage;
+
+import io.bluestaggo.voxelthing.math.MathUtil;
+import io.bluestaggo.voxelthing.world.BlockStorage;
+import io.bluestaggo.voxelthing.world.Chunk;
+import io.bluestaggo.voxelthing.world.block.Block;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+// Stores palette indices of any width from 1 to 16 bits, packed back to back into longs.
+// An index may straddle two longs unless the width divides 64.
+public class PackedBlockStorage extends BlockStorage {
+	public static final int MAX_BITS = 16;
+
+	private final int bits;
+	private final long mask;
+	private final boolean aligned;
+	private final long[] data;
+
+	public PackedBlockStorage(int bits) {
+		super();
+		this.bits = bits;
+		mask = (1L << bits) - 1;
+		aligned = 64 % bits == 0;
+		data = new long[Chunk.VOLUME / 64 * bits];
+	}
+
+	public PackedBlockStorage(List<Block> palette, int bits) {
+		super(palette);
+		this.bits = bits;
+		mask = (1L << bits) - 1;
+		aligned = 64 % bits == 0;
+		data = new long[Chunk.VOLUME / 64 * bits];
+	}
+
+	// The width comes from the length of the data, which is checked since it is read from a save.
+	public PackedBlockStorage(List<Block> palette, ByteBuffer bytes) throws IOException {
+		super(palette);
+		if (bytes.remaining() % (Chunk.VOLUME / 8) != 0) {
+			throw new IOException("Packed block data of " + bytes.remaining() + " bytes is not a whole number of bits per block");
+		}
+		bits = bytes.remaining() / (Chunk.VOLUME / 8);
+		if (bits < 1 || bits > MAX_BITS) {
+			throw new IOException("Invalid packed block width " + bits);
+		}
+		if (palette.size() > 1 << bits) {
+			throw new IOException("Palette of " + palette.size() + " blocks doesn't fit in " + bits + " bits");
+		}
+		mask = (1L << bits) - 1;
+		aligned = 64 % bits == 0;
+		data = new long[Chunk.VOLUME / 64 * bits];
+		bytes.asLongBuffer().get(data);
+		updateBlockCounts();
+	}
+
+	public PackedBlockStorage(BlockStorage storage, int bits) {
+		super(storage);
+		this.bits = bits;
+		mask = (1L << bits) - 1;
+		aligned = 64 % bits == 0;
+		data = new long[Chunk.VOLUME / 64 * bits];
+		copyBlockIds(storage);
+	}
+
+	// The smallest width that can index a palette of the given size.
+	public static int bitsFor(int paletteSize) {
+		return Math.max(1, 32 - Integer.numberOfLeadingZeros(paletteSize - 1));
+	}
+
+	public int getBits() {
+		return bits;
+	}
+
+	@Override
+	protected int getBlockId(int x, int y, int z) {
+		int bit = MathUtil.index3D(x, y, z, Chunk.LENGTH) * bits;
+		int i = bit >>> 6;
+		int offset = bit & 63;
+
+		if (aligned || offset + bits <= 64) {
+			return (int) (data[i] >>> offset & mask);
+		}
+		return (int) ((data[i] >>> offset | data[i + 1] << 64 - offset) & mask);
+	}
+
+	@Override
+	protected void setBlockId(int x, int y, int z, int id) {
+		int bit = MathUtil.index3D(x, y, z, Chunk.LENGTH) * bits;
+		int i = bit >>> 6;
+		int offset = bit & 63;
+
+		data[i] = data[i] & ~(mask << offset) | (id & mask) << offset;
+		if (!aligned && offset + bits > 64) {
+			int shift = 64 - offset;
+			data[i + 1] = data[i + 1] & ~(mask >>> shift) | (id & mask) >>> shift;
+		}
+	}
+
+	@Override
+	protected int getMaxPaletteSize() {
+		return 1 << bits;
+	}
+
+	@Override
+	public BlockStorage expand() {
+		if (bits >= MAX_BITS) {
+			return super.expand();
+		}
+		return new PackedBlockStorage(this, bits + 1);
+	}
+
+	@Override
+	public byte[] getBytes() {
+		ByteBuffer buffer = ByteBuffer.allocate(data.length * 8);
+		buffer.asLongBuffer().put(data);
+		return buffer.array();
+	}
+
+	@Override
+	public int getMemoryUsage() {
+		return data.length * 8;
+	}
+}
@@ -0,0 +1,153 @@
+package io.bluestaggo.voxelthing.world.storage;
+
+import io.bluestaggo.pds.BufferPool;
+import io.bluestaggo.voxelthing.math.MathUtil;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+// Packs the chunks of a LENGTH^3 area into a single file. The file starts with a header
+// table holding the sector offset and byte length of every chunk, followed by the chunk
+// data itself, which is allocated in whole sectors.
+// RandomAccessFile is used over FileChannel since an interrupted thread would close a channel
+// for every other thread too.
+public class RegionFile implements AutoCloseable {
+	public static final int SIZE_POW2 = 4;
+	public static final int LENGTH = 1 << SIZE_POW2;
+	public static final int LENGTH_MASK = (1 << SIZE_POW2) - 1;
+	public static final int VOLUME = 1 << SIZE_POW2 * 3;
+	public static final int SECTOR_SIZE = 4096;
+
+	private static final int HEADER_SIZE = VOLUME * 8;
+	private static final int HEADER_SECTORS = HEADER_SIZE / SECTOR_SIZE;
+
+	private final RandomAccessFile file;
+	private final int[] offsets = new int[VOLUME];
+	private final int[] lengths = new int[VOLUME];
+	private final BitSet usedSectors = new BitSet();
+
+	public RegionFile(Path path) throws IOException {
+		file = new RandomAccessFile(path.toFile(), "rw");
+
+		if (file.length() < HEADER_SIZE) {
+			file.seek(0);
+			file.write(new byte[HEADER_SIZE]);
+		} else {
+			byte[] bytes = new byte[HEADER_SIZE];
+			file.seek(0);
+			file.readFully(bytes);
+
+			ByteBuffer header = ByteBuffer.wrap(bytes);
+			for (int i = 0; i < VOLUME; i++) {
+				offsets[i] = header.getInt();
+				lengths[i] = header.getInt();
+			}
+		}
+
+		usedSectors.set(0, HEADER_SECTORS);
+		for (int i = 0; i < VOLUME; i++) {
+			if (offsets[i] != 0) {
+				usedSectors.set(offsets[i], offsets[i] + sectorCount(lengths[i]));
+			}
+		}
+	}
+
+	private static int index(int x, int y, int z) {
+		return MathUtil.index3D(x & LENGTH_MASK, y & LENGTH_MASK, z & LENGTH_MASK, LENGTH);
+	}
+
+	private static int sectorCount(int length) {
+		return (length + SECTOR_SIZE - 1) / SECTOR_SIZE;
+	}
+
+	public synchronized boolean hasChunk(int x, int y, int z) {
+		return offsets[index(x, y, z)] != 0;
+	}
+
+	public synchronized byte[] read(int x, int y, int z) throws IOException {
+		int i = index(x, y, z);
+		if (offsets[i] == 0) {
+			return null;
+		}
+
+		byte[] data = new byte[lengths[i]];
+		file.seek((long) offsets[i] * SECTOR_SIZE);
+		file.readFully(data);
+		return data;
+	}
+
+	// Reads a chunk into a heap buffer from the pool, which the caller releases when done with it.
+	public synchronized ByteBuffer read(int x, int y, int z, BufferPool pool) throws IOException {
+		int i = index(x, y, z);
+		if (offsets[i] == 0) {
+			return null;
+		}
+
+		ByteBuffer buffer = pool.acquire(lengths[i]);
+		try {
+			file.seek((long) offsets[i] * SECTOR_SIZE);
+			file.readFully(buffer.array(), buffer.arrayOffset(), lengths[i]);
+		} catch (IOException e) {
+			pool.release(buffer);
+			throw e;
+		}
+		return buffer;
+	}
+
+	public void write(int x, int y, int z, byte[] data) throws IOException {
+		write(x, y, z, ByteBuffer.wrap(data));
+	}
+
+	// Writes the remaining bytes of a heap buffer.
+	public synchronized void write(int x, int y, int z, ByteBuffer data) throws IOException {
+		int i = index(x, y, z);
+		int length = data.remaining();
+		int sectors = Math.max(sectorCount(length), 1);
+		int offset = offsets[i];
+		int oldSectors = offset == 0 ? 0 : sectorCount(lengths[i]);
+
+		if (sectors > oldSectors) {
+			if (offset != 0) {
+				usedSectors.clear(offset, offset + oldSectors);
+			}
+			offset = allocate(sectors);
+		} else {
+			usedSectors.clear(offset + sectors, offset + oldSectors);
+		}
+
+		file.seek((long) offset * SECTOR_SIZE);
+		file.write(data.array(), data.arrayOffset() + data.position(), length);
+
+		offsets[i] = offset;
+		lengths[i] = length;
+
+		file.seek((long) i * 8);
+		file.write(ByteBuffer.allocate(8).putInt(offset).putInt(length).array());
+	}
+
+	private int allocate(int sectors) {
+		int start = HEADER_SECTORS;
+		while (true) {
+			start = usedSectors.nextClearBit(start);
+			int end = usedSectors.nextSetBit(start);
+			if (end == -1 || end - start >= sectors) {
+				usedSectors.set(start, start + sectors);
+				return start;
+			}
+			start = end;
+		}
+	}
+
+	// Flushes everything written so far to the disk.
+	public synchronized void sync() throws IOException {
+		file.getFD().sync();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		file.close();
+	}
+}
@@ -0,0 +1,289 @@
+package io.bluestaggo.voxelthing.world.storage;
+
+import io.bluestaggo.pds.BufferPool;
+import io.bluestaggo.pds.CompactEncoder;
+import io.bluestaggo.pds.CompoundItem;
+import io.bluestaggo.pds.PdsView;
+import io.bluestaggo.pds.StructureItem;
+import io.bluestaggo.voxelthing.world.Chunk;
+import io.bluestaggo.voxelthing.world.World;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class RegionSaveHandler implements ISaveHandler {
+	private static final int MAX_OPEN_REGIONS = 64;
+
+	private final Path root;
+	private final Path regionFolder;
+	private final Path legacyChunkFolder;
+	private final Map<Long, RegionFile> regions = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, RegionFile> eldest) {
+			if (size() > MAX_OPEN_REGIONS) {
+				closeRegion(eldest.getValue());
+				return true;
+			}
+			return false;
+		}
+	};
+	private boolean checkedLegacyChunks;
+
+	public RegionSaveHandler(Path root) throws IOException {
+		this.root = root;
+		regionFolder = root.resolve("regions");
+		legacyChunkFolder = root.resolve("chunks");
+
+		Files.createDirectories(root);
+		Files.createDirectories(regionFolder);
+	}
+
+	private Path getRegionPath(int rx, int ry, int rz) {
+		return regionFolder.resolve(rx + "_" + ry + "_" + rz + ".vtr");
+	}
+
+	private RegionFile getRegion(int x, int y, int z, boolean create) throws IOException {
+		int rx = x >> RegionFile.SIZE_POW2;
+		int ry = y >> RegionFile.SIZE_POW2;
+		int rz = z >> RegionFile.SIZE_POW2;
+		long key = ChunkStorage.chunkKey(rx, ry, rz);
+
+		RegionFile region = regions.get(key);
+		if (region == null) {
+			Path path = getRegionPath(rx, ry, rz);
+			if (!create && !Files.exists(path)) {
+				return null;
+			}
+			region = new RegionFile(path);
+			regions.put(key, region);
+		}
+		return region;
+	}
+
+	private void closeRegion(RegionFile region) {
+		try {
+			region.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	public CompoundItem loadData(String type) {
+		Path file = root.resolve(type + ".dat");
+		try {
+			var item = StructureItem.readItemFromPath(file);
+			if (item instanceof CompoundItem compoundItem) {
+				return compoundItem;
+			}
+			return null;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public void saveData(String type, CompoundItem data) {
+		Path file = root.resolve(type + ".dat");
+		try {
+			data.writeItemToPath(file);
+		} catch (IOException e) {
+			System.out.println("Failed to save world data to \"" + file + "\"");
+			e.printStackTrace();
+		}
+	}
+
+	private synchronized byte[] readChunkBytes(int x, int y, int z) throws IOException {
+		convertLegacyChunks();
+		RegionFile region = getRegion(x, y, z, false);
+		return region == null ? null : region.read(x, y, z);
+	}
+
+	@Override
+	public CompoundItem loadChunkData(int x, int y, int z) {
+		try {
+			byte[] bytes = readChunkBytes(x, y, z);
+			if (bytes == null) {
+				return null;
+			}
+
+			var item = StructureItem.readItem(ByteBuffer.wrap(bytes));
+			if (item instanceof CompoundItem compoundItem) {
+				return compoundItem;
+			}
+			return null;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public Chunk loadChunk(World world, int x, int y, int z) {
+		ByteBuffer buffer;
+		try {
+			synchronized (this) {
+				convertLegacyChunks();
+				RegionFile region = getRegion(x, y, z, false);
+				buffer = region == null ? null : region.read(x, y, z, BufferPool.HEAP);
+			}
+		} catch (IOException e) {
+			return null;
+		}
+
+		if (buffer == null) {
+			return null;
+		}
+
+		// Nothing in the chunk keeps a reference to the buffer, so it can go straight back to the pool.
+		try {
+			return Chunk.deserialize(world, x, y, z, new PdsView(buffer));
+		} catch (IOException e) {
+			System.out.println("Failed to read chunk at " + x + ", " + y + ", " + z);
+			e.printStackTrace();
+			return null;
+		} finally {
+			BufferPool.HEAP.release(buffer);
+		}
+	}
+
+	@Override
+	public void saveChunkData(int x, int y, int z, CompoundItem data) {
+		CompactEncoder encoder = new CompactEncoder(data);
+		ByteBuffer buffer = BufferPool.HEAP.acquire(encoder.getEncodedSize());
+		try {
+			encoder.write(buffer);
+			buffer.flip();
+			synchronized (this) {
+				convertLegacyChunks();
+				getRegion(x, y, z, true).write(x, y, z, buffer);
+			}
+		} catch (IOException e) {
+			System.out.println("Failed to save chunk at " + x + ", " + y + ", " + z + " to \"" + regionFolder + "\"");
+			e.printStackTrace();
+		} finally {
+			BufferPool.HEAP.release(buffer);
+		}
+	}
+
+	// Moves chunks saved by FolderSaveHandler into region files. Chunk data can be read the same
+	// way in both layouts, whichever PDS version it uses, so the files are copied over byte for byte.
+	// Chunks are converted one region at a time, and their files are only deleted once the region
+	// has been synced to the disk.
+	private void convertLegacyChunks() {
+		if (checkedLegacyChunks) {
+			return;
+		}
+		checkedLegacyChunks = true;
+
+		if (!Files.isDirectory(legacyChunkFolder)) {
+			return;
+		}
+
+		Map<Long, List<Path>> regionFiles = new LinkedHashMap<>();
+		int count = 0;
+		try (Stream<Path> stream = Files.list(legacyChunkFolder)) {
+			for (Path file : (Iterable<Path>) stream::iterator) {
+				int[] coords = parseLegacyChunkName(file);
+				if (coords == null) {
+					continue;
+				}
+				long key = ChunkStorage.chunkKey(coords[0] >> RegionFile.SIZE_POW2,
+						coords[1] >> RegionFile.SIZE_POW2, coords[2] >> RegionFile.SIZE_POW2);
+				regionFiles.computeIfAbsent(key, k -> new ArrayList<>()).add(file);
+				count++;
+			}
+		} catch (IOException e) {
+			System.out.println("Failed to convert chunks in \"" + legacyChunkFolder + "\"");
+			e.printStackTrace();
+			return;
+		}
+
+		System.out.println("Converting " + count + " chunks in \"" + legacyChunkFolder + "\" to region files");
+		for (List<Path> files : regionFiles.values()) {
+			convertLegacyRegion(files);
+		}
+
+		try (Stream<Path> stream = Files.list(legacyChunkFolder)) {
+			if (stream.findAny().isEmpty()) {
+				Files.delete(legacyChunkFolder);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// Returns the chunk coordinates in the name of a chunk file, or null if it isn't one.
+	private static int[] parseLegacyChunkName(Path file) {
+		String name = file.getFileName().toString();
+		if (!name.endsWith(".dat")) {
+			return null;
+		}
+
+		String[] coords = name.substring(0, name.length() - 4).split("_");
+		if (coords.length != 3) {
+			return null;
+		}
+
+		try {
+			return new int[] {
+					Integer.parseInt(coords[0]),
+					Integer.parseInt(coords[1]),
+					Integer.parseInt(coords[2])
+			};
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private void convertLegacyRegion(List<Path> files) {
+		RegionFile region = null;
+		List<Path> converted = new ArrayList<>();
+
+		for (Path file : files) {
+			int[] coords = parseLegacyChunkName(file);
+			try {
+				region = getRegion(coords[0], coords[1], coords[2], true);
+				region.write(coords[0], coords[1], coords[2], Files.readAllBytes(file));
+				converted.add(file);
+			} catch (IOException e) {
+				System.out.println("Failed to convert chunk \"" + file + "\"");
+				e.printStackTrace();
+			}
+		}
+
+		if (region == null) {
+			return;
+		}
+
+		try {
+			region.sync();
+		} catch (IOException e) {
+			System.out.println("Failed to sync converted chunks, keeping the originals");
+			e.printStackTrace();
+			return;
+		}
+
+		for (Path file : converted) {
+			try {
+				Files.delete(file);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		for (RegionFile region : regions.values()) {
+			closeRegion(region);
+		}
+		regions.clear();
+	}
+}
@@ -19,27 +19,25 @@ public class ShortBlockStorage extends BlockStorage {
 		super(palette);
 	}
 
-	public ShortBlockStorage(List<Block> palette, byte[] bytes) {
+	public ShortBlockStorage(List<Block> palette, ByteBuffer bytes) {
 		super(palette);
-		ByteBuffer buffer = ByteBuffer.wrap(bytes);
-		buffer.asShortBuffer().get(blocks);
+		bytes.asShortBuffer().get(blocks);
 		updateBlockCounts();
 	}
 
-	public ShortBlockStorage(ByteBlockStorage storage) {
+	public ShortBlockStorage(BlockStorage storage) {
 		super(storage);
-		ByteBuffer buffer = ByteBuffer.wrap(storage.getBytes());
-		buffer.asShortBuffer().get(blocks);
+		copyBlockIds(storage);
 	}
 
 	@Override
 	protected int getBlockId(int x, int y, int z) {
-		return blocks[MathUtil.index3D(x, y, z, Chunk.LENGTH)];
+		return blocks[MathUtil.index3D(x, y, z, Chunk.LENGTH)] & 0xFFFF;
 	}
 
 	@Override
 	protected void setBlockId(int x, int y, int z, int id) {
-		blocks[MathUtil.index3D(x, y, z, Chunk.LENGTH)] = (byte)id;
+		blocks[MathUtil.index3D(x, y, z, Chunk.LENGTH)] = (short) id;
 	}
 
 	@Override
@@ -53,4 +51,9 @@ public class ShortBlockStorage extends BlockStorage {
 		buffer.asShortBuffer().put(blocks);
 		return buffer.array();
 	}
+
+	@Override
+	public int getMemoryUsage() {
+		return blocks.length * 2;
+	}
 }
@@ -0,0 +1,79 @@
+package io.bluestaggo.voxelthing.world.storage;
+
+import io.bluestaggo.voxelthing.world.BlockStorage;
+import io.bluestaggo.voxelthing.world.Chunk;
+import io.bluestaggo.voxelthing.world.block.Block;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// A chunk made of a single block, such as solid stone or open water. Writing any other
+// block expands it into a packed storage.
+public class UniformBlockStorage extends BlockStorage {
+	private final Block block;
+
+	public UniformBlockStorage(Block block) {
+		this(createPalette(block), ByteBuffer.allocate(0));
+	}
+
+	public UniformBlockStorage(List<Block> palette, ByteBuffer bytes) {
+		super(palette);
+		block = palette.get(1);
+		setBlockCount(1, Chunk.VOLUME);
+	}
+
+	private static List<Block> createPalette(Block block) {
+		List<Block> palette = new ArrayList<>();
+		palette.add(null);
+		palette.add(block);
+		return palette;
+	}
+
+	public Block getUniformBlock() {
+		return block;
+	}
+
+	@Override
+	protected int getBlockId(int x, int y, int z) {
+		return 1;
+	}
+
+	@Override
+	protected void setBlockId(int x, int y, int z, int id) {
+		if (id != 1) {
+			throw new UnsupportedOperationException("Uniform block storage must be expanded first");
+		}
+	}
+
+	@Override
+	public Block getBlock(int x, int y, int z) {
+		return block;
+	}
+
+	@Override
+	protected int getMaxPaletteSize() {
+		return 2;
+	}
+
+	@Override
+	public boolean needsExpansion(Block block) {
+		return block != this.block;
+	}
+
+	// Two bits, since the block being written is neither air nor this block.
+	@Override
+	public BlockStorage expand() {
+		return new PackedBlockStorage(this, 2);
+	}
+
+	@Override
+	public byte[] getBytes() {
+		return new byte[0];
+	}
+
+	@Override
+	public int getMemoryUsage() {
+		return 0;
+	}
+}
@@ -0,0 +1,75 @@
+package io.bluestaggo.voxelthing.math;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Octave noise runs for every column and cave sample, so it must not allocate.
+// Run by the allocationTest task rather than test.
+@Tag("allocation")
+public class OctaveNoiseAllocationTest {
+	private static final int WARMUP_CALLS = 200_000;
+	private static final int CALLS = 1_000_000;
+
+	private static ThreadMXBean threads;
+	private static float sink;
+
+	@BeforeAll
+	public static void setUp() {
+		threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	private static void noise2(int calls) {
+		for (int i = 0; i < calls; i++) {
+			sink += OpenSimplex2Octaves.noise2(1234, 6, i / 300.0, i / 7.0);
+		}
+	}
+
+	private static void noise3(int calls) {
+		for (int i = 0; i < calls; i++) {
+			sink += OpenSimplex2Octaves.noise3_ImproveXZ(1234, 4, i / 100.0, i / 50.0, i / 7.0);
+		}
+	}
+
+	// Bytes allocated by the current thread while running the calls, after running them once to
+	// let the JIT compile them.
+	private static long allocatedBytes(Runnable warmup, Runnable calls) {
+		warmup.run();
+		long before = threads.getCurrentThreadAllocatedBytes();
+		calls.run();
+		return threads.getCurrentThreadAllocatedBytes() - before;
+	}
+
+	@Test
+	public void noise2DoesNotAllocate() {
+		long bytes = allocatedBytes(() -> noise2(WARMUP_CALLS), () -> noise2(CALLS));
+		assertEquals(0, bytes / CALLS, bytes + " bytes allocated over " + CALLS + " calls");
+	}
+
+	@Test
+	public void noise3DoesNotAllocate() {
+		long bytes = allocatedBytes(() -> noise3(WARMUP_CALLS), () -> noise3(CALLS));
+		assertEquals(0, bytes / CALLS, bytes + " bytes allocated over " + CALLS + " calls");
+	}
+
+	@Test
+	public void gridsDoNotAllocate() {
+		float[] out = new float[32 * 32];
+		Runnable grids = () -> {
+			for (int i = 0; i < 1000; i++) {
+				OpenSimplex2Octaves.noise2Grid(1234, 6, i * 32, 0, 1, 300.0, 32, 32, out);
+				OpenSimplex2Octaves.noise3Grid_ImproveXZ(1234, 4, i * 32, 0, 0, 4, 100.0, 50.0, 8, 8, 8, out);
+			}
+		};
+		long bytes = allocatedBytes(grids, grids);
+		assertEquals(0, bytes / 1000, bytes + " bytes allocated over 1000 chunks");
+	}
+}
@@ -0,0 +1,233 @@
+package io.bluestaggo.voxelthing.world;
+
+import io.bluestaggo.voxelthing.world.block.Block;
+import io.bluestaggo.voxelthing.world.storage.ChunkStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Readers on several threads against a single writer, which is how the main thread and the
+// generator, mesher and save threads share chunks.
+public class ChunkConcurrencyTest {
+	private static final int READERS = 4;
+	private static final int ROUNDS = 300;
+	// Enough different blocks at once that the storage widens several times each round.
+	private static final int KINDS = 100;
+
+	private World world;
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+	private volatile boolean done;
+
+	@BeforeEach
+	public void setUp() {
+		world = new World(null, new WorldInfo());
+	}
+
+	@AfterEach
+	public void tearDown() {
+		world.close();
+	}
+
+	private void runReaders(Runnable writer, Runnable reader) throws InterruptedException {
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < READERS; i++) {
+			Thread thread = new Thread(() -> {
+				try {
+					while (!done && failure.get() == null) {
+						reader.run();
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		try {
+			writer.run();
+		} catch (Throwable e) {
+			failure.compareAndSet(null, e);
+		} finally {
+			done = true;
+			for (Thread thread : threads) {
+				thread.join();
+			}
+		}
+
+		if (failure.get() != null) {
+			fail(failure.get());
+		}
+	}
+
+	// The block written at a position in a round. Every fourth round fills the whole chunk at once.
+	private static Block expected(int round, int i) {
+		if (round == 0) {
+			return null;
+		}
+		if (round % 4 == 0) {
+			return Block.REGISTERED_BLOCKS_ORDERED.get(round % KINDS);
+		}
+		return Block.REGISTERED_BLOCKS_ORDERED.get((round + i * 31 % KINDS) % KINDS);
+	}
+
+	@Test
+	public void getBlockDuringSetBlockAndExpand() throws InterruptedException {
+		Chunk chunk = new Chunk(world, 0, 0, 0);
+		int[] started = new int[1];
+		int[] finished = new int[1];
+		Object lock = new Object();
+
+		Runnable writer = () -> {
+			for (int round = 1; round <= ROUNDS; round++) {
+				synchronized (lock) {
+					started[0] = round;
+				}
+
+				if (round % 4 == 0) {
+					chunk.fill(expected(round, 0));
+				} else {
+					for (int i = 0; i < Chunk.VOLUME; i++) {
+						chunk.setBlock(i >> Chunk.SIZE_POW2 * 2, i >> Chunk.SIZE_POW2 & Chunk.LENGTH_MASK, i & Chunk.LENGTH_MASK,
+								expected(round, i));
+					}
+				}
+
+				synchronized (lock) {
+					finished[0] = round;
+				}
+			}
+		};
+
+		Random sharedRandom = new Random(1);
+		Runnable reader = () -> {
+			Random random;
+			synchronized (sharedRandom) {
+				random = new Random(sharedRandom.nextLong());
+			}
+
+			for (int n = 0; n < 1000; n++) {
+				int i = random.nextInt(Chunk.VOLUME);
+				int before;
+				synchronized (lock) {
+					before = finished[0];
+				}
+				Block block = chunk.getBlock(i >> Chunk.SIZE_POW2 * 2, i >> Chunk.SIZE_POW2 & Chunk.LENGTH_MASK, i & Chunk.LENGTH_MASK);
+				int after;
+				synchronized (lock) {
+					after = started[0];
+				}
+
+				// The block has to be one that was at that position at some point during the read.
+				boolean valid = false;
+				for (int round = before; round <= after && !valid; round++) {
+					valid = block == expected(round, i);
+				}
+				assertTrue(valid, "read " + block + " at " + i + " between rounds " + before + " and " + after);
+			}
+		};
+
+		runReaders(writer, reader);
+	}
+
+	@Test
+	public void getChunkAtDuringPutRemoveAndResize() throws InterruptedException {
+		ChunkStorage storage = new ChunkStorage(world);
+
+		// These are never removed, so lookups must always find them, whatever else moves around them.
+		List<Chunk> permanent = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			Chunk chunk = new Chunk(world, i, -i, i * 7);
+			storage.putChunk(chunk);
+			permanent.add(chunk);
+		}
+
+		Runnable writer = () -> {
+			Random random = new Random(2);
+			for (int round = 1; round <= 12; round++) {
+				// Each round adds more chunks than the last, so the table keeps growing.
+				List<Chunk> added = new ArrayList<>();
+				for (int i = 0; i < round * 1000; i++) {
+					Chunk chunk = new Chunk(world, random.nextInt(1000), 1000 + random.nextInt(1000), random.nextInt(1000));
+					storage.putChunk(chunk);
+					added.add(chunk);
+				}
+
+				Collections.shuffle(added, random);
+				for (Chunk chunk : added) {
+					storage.unloadChunkAt(chunk.x, chunk.y, chunk.z);
+				}
+			}
+		};
+
+		Random sharedRandom = new Random(3);
+		Runnable reader = () -> {
+			Random random;
+			synchronized (sharedRandom) {
+				random = new Random(sharedRandom.nextLong());
+			}
+
+			for (int n = 0; n < 1000; n++) {
+				Chunk expected = permanent.get(random.nextInt(permanent.size()));
+				assertSame(expected, storage.getChunkAt(expected.x, expected.y, expected.z));
+
+				int x = random.nextInt(1000);
+				int y = 1000 + random.nextInt(1000);
+				int z = random.nextInt(1000);
+				Chunk chunk = storage.getChunkAt(x, y, z);
+				if (chunk != null) {
+					assertEquals(x, chunk.x);
+					assertEquals(y, chunk.y);
+					assertEquals(z, chunk.z);
+				}
+			}
+		};
+
+		runReaders(writer, reader);
+		assertEquals(permanent.size(), storage.getChunkCount());
+	}
+
+	@Test
+	public void getChunkAtDuringUnloadAll() throws InterruptedException {
+		ChunkStorage storage = new ChunkStorage(world);
+
+		Runnable writer = () -> {
+			for (int round = 0; round < 50; round++) {
+				for (int i = 0; i < 3000; i++) {
+					storage.putChunk(new Chunk(world, i, round, -i));
+				}
+				storage.unloadAllChunks();
+			}
+		};
+
+		Random sharedRandom = new Random(4);
+		Runnable reader = () -> {
+			Random random;
+			synchronized (sharedRandom) {
+				random = new Random(sharedRandom.nextLong());
+			}
+
+			for (int n = 0; n < 1000; n++) {
+				int i = random.nextInt(3000);
+				int round = random.nextInt(50);
+				Chunk chunk = storage.getChunkAt(i, round, -i);
+				if (chunk != null) {
+					assertEquals(i, chunk.x);
+					assertEquals(round, chunk.y);
+					assertEquals(-i, chunk.z);
+				}
+			}
+		};
+
+		runReaders(writer, reader);
+		assertEquals(0, storage.getChunkCount());
+	}
+}
@@ -0,0 +1,151 @@
+package io.bluestaggo.voxelthing.world;
+
+import io.bluestaggo.pds.CompoundItem;
+import io.bluestaggo.voxelthing.world.block.Block;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Chunks are only decorated once all their neighbours are loaded, so the result can't depend on
+// the order chunks are loaded in.
+public class DecorationTest {
+	private static final long SEED = 1234;
+	private static final int RADIUS = 3;
+	private static final int MIN_Y = -4;
+	private static final int MAX_Y = 8;
+
+	private static World loadArea(boolean reverse) {
+		WorldInfo info = new WorldInfo();
+		info.seed = SEED;
+		World world = new World(null, info);
+
+		List<int[]> positions = new ArrayList<>();
+		for (int cx = -RADIUS; cx <= RADIUS; cx++) {
+			for (int cz = -RADIUS; cz <= RADIUS; cz++) {
+				for (int cy = MIN_Y; cy <= MAX_Y; cy++) {
+					positions.add(new int[]{cx, cy, cz});
+				}
+			}
+		}
+		if (reverse) {
+			Collections.reverse(positions);
+		}
+
+		for (int[] pos : positions) {
+			world.loadChunkAt(pos[0], pos[1], pos[2]);
+		}
+		return world;
+	}
+
+	private static boolean onEdge(int cx, int cy, int cz) {
+		return Math.abs(cx) == RADIUS || Math.abs(cz) == RADIUS || cy == MIN_Y || cy == MAX_Y;
+	}
+
+	@Test
+	public void decorationIgnoresLoadOrder() {
+		World forward = loadArea(false);
+		World reverse = loadArea(true);
+
+		int logs = 0;
+		for (int cx = -RADIUS; cx <= RADIUS; cx++) {
+			for (int cz = -RADIUS; cz <= RADIUS; cz++) {
+				for (int cy = MIN_Y; cy <= MAX_Y; cy++) {
+					Chunk a = forward.getChunkAt(cx, cy, cz);
+					Chunk b = reverse.getChunkAt(cx, cy, cz);
+					assertEquals(!onEdge(cx, cy, cz), a.isDecorated(), cx + " " + cy + " " + cz);
+					assertEquals(a.isDecorated(), b.isDecorated(), cx + " " + cy + " " + cz);
+					if (!a.isDecorated()) {
+						continue;
+					}
+
+					for (int x = 0; x < Chunk.LENGTH; x++) {
+						for (int y = 0; y < Chunk.LENGTH; y++) {
+							for (int z = 0; z < Chunk.LENGTH; z++) {
+								Block block = a.getBlock(x, y, z);
+								assertSame(block, b.getBlock(x, y, z));
+								if (block == Block.LOG) {
+									logs++;
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+
+		assertTrue(logs > 0, "no trees were placed");
+		forward.close();
+		reverse.close();
+	}
+
+	// Like ChunkRenderer.render(): a missing chunk is requested on its own, and a loaded one
+	// requests its neighbours.
+	private static boolean renderPass(World world, int radius) {
+		boolean loaded = false;
+		for (int cx = -radius; cx <= radius; cx++) {
+			for (int cy = -radius; cy <= radius; cy++) {
+				for (int cz = -radius; cz <= radius; cz++) {
+					if (world.getChunkAt(cx, cy, cz) == null) {
+						world.loadChunkAt(cx, cy, cz);
+						loaded = true;
+						continue;
+					}
+
+					for (int dx = -1; dx <= 1; dx++) {
+						for (int dy = -1; dy <= 1; dy++) {
+							for (int dz = -1; dz <= 1; dz++) {
+								if (world.getChunkAt(cx + dx, cy + dy, cz + dz) == null) {
+									world.loadChunkAt(cx + dx, cy + dy, cz + dz);
+									loaded = true;
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+		return loaded;
+	}
+
+	@Test
+	public void renderedChunksAreDecorated() {
+		int radius = 2;
+		WorldInfo info = new WorldInfo();
+		info.seed = SEED;
+		World world = new World(null, info);
+		while (renderPass(world, radius)) {
+		}
+
+		for (int cx = -radius; cx <= radius; cx++) {
+			for (int cy = -radius; cy <= radius; cy++) {
+				for (int cz = -radius; cz <= radius; cz++) {
+					assertTrue(world.getChunkAt(cx, cy, cz).isDecorated(), cx + " " + cy + " " + cz);
+				}
+			}
+		}
+		world.close();
+	}
+
+	@Test
+	public void decoratedFlagIsSaved() throws IOException {
+		World world = new World(null, new WorldInfo());
+		Chunk chunk = new Chunk(world, 0, 0, 0);
+		chunk.setBlock(0, 0, 0, Block.STONE);
+
+		chunk.setDecorated(false);
+		assertFalse(Chunk.deserialize(world, 0, 0, 0, chunk.serialize()).isDecorated());
+		chunk.setDecorated(true);
+		assertTrue(Chunk.deserialize(world, 0, 0, 0, chunk.serialize()).isDecorated());
+
+		// Saves from before the flag existed were decorated when they were generated.
+		CompoundItem item = chunk.serialize();
+		item.map.remove("decorated");
+		assertTrue(Chunk.deserialize(world, 0, 0, 0, item).isDecorated());
+		world.close();
+	}
+}
@@ -0,0 +1,86 @@
+package io.bluestaggo.voxelthing.world.generation;
+
+import io.bluestaggo.voxelthing.world.Chunk;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Compares biomes and trees sampled at BIOME_RESOLUTION_POW2 with biomeGen(0), which samples
+// every block and gives exactly the biomes from before they were interpolated.
+public class BiomeResolutionTest {
+	private static final long SEED = 1234;
+	private static final int CHUNKS = 32;
+	private static final int LENGTH = CHUNKS * Chunk.LENGTH;
+	private static final int RESOLUTION = 1 << GenerationInfo.BIOME_RESOLUTION_POW2;
+	// Interpolating moves biome borders slightly, so a few columns along them may change.
+	private static final double MAX_DIFFERENT_FRACTION = 0.001;
+
+	private static final Biomes[] fullBiomes = new Biomes[LENGTH * LENGTH];
+	private static final Biomes[] biomes = new Biomes[LENGTH * LENGTH];
+	private static final float[] fullTrees = new float[LENGTH * LENGTH];
+	private static final float[] trees = new float[LENGTH * LENGTH];
+
+	private static void generate(int resolutionPow2, Biomes[] biomes, float[] trees) {
+		for (int cx = 0; cx < CHUNKS; cx++) {
+			for (int cz = 0; cz < CHUNKS; cz++) {
+				GenerationInfo info = new GenerationInfo(SEED, cx - CHUNKS / 2, cz - CHUNKS / 2, WorldType.Normal);
+				info.biomeGen(resolutionPow2);
+				info.treeGen();
+
+				for (int x = 0; x < Chunk.LENGTH; x++) {
+					for (int z = 0; z < Chunk.LENGTH; z++) {
+						int i = cx * Chunk.LENGTH + x + (cz * Chunk.LENGTH + z) * LENGTH;
+						biomes[i] = info.getBiome(x, z);
+						trees[i] = info.getTree(x, z);
+					}
+				}
+			}
+		}
+	}
+
+	@BeforeAll
+	public static void setUp() {
+		generate(0, fullBiomes, fullTrees);
+		generate(GenerationInfo.BIOME_RESOLUTION_POW2, biomes, trees);
+	}
+
+	// Whether a different biome is within one sample spacing of the column at full resolution.
+	private static boolean nearBorder(int x, int z) {
+		Biomes biome = fullBiomes[x + z * LENGTH];
+		for (int xx = Math.max(x - RESOLUTION, 0); xx <= Math.min(x + RESOLUTION, LENGTH - 1); xx++) {
+			for (int zz = Math.max(z - RESOLUTION, 0); zz <= Math.min(z + RESOLUTION, LENGTH - 1); zz++) {
+				if (fullBiomes[xx + zz * LENGTH] != biome) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void biomesDifferOnlyAlongBorders() {
+		int different = 0;
+		for (int x = 0; x < LENGTH; x++) {
+			for (int z = 0; z < LENGTH; z++) {
+				if (biomes[x + z * LENGTH] != fullBiomes[x + z * LENGTH]) {
+					different++;
+					assertTrue(nearBorder(x, z), "biome differs away from any border at " + x + ", " + z);
+				}
+			}
+		}
+
+		double fraction = different / (double) (LENGTH * LENGTH);
+		assertTrue(fraction <= MAX_DIFFERENT_FRACTION,
+				different + " of " + LENGTH * LENGTH + " biomes differ, over the limit of " + MAX_DIFFERENT_FRACTION * 100 + "%");
+	}
+
+	@Test
+	public void treesDifferOnlyWhereBiomesDo() {
+		for (int i = 0; i < LENGTH * LENGTH; i++) {
+			if (biomes[i] == fullBiomes[i]) {
+				assertEquals(fullTrees[i], trees[i], "tree differs at column " + i + " in the same biome");
+			}
+		}
+	}
+}
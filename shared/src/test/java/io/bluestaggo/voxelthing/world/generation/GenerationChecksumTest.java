@@ -0,0 +1,97 @@
+package io.bluestaggo.voxelthing.world.generation;
+
+import io.bluestaggo.voxelthing.world.Chunk;
+import io.bluestaggo.voxelthing.world.World;
+import io.bluestaggo.voxelthing.world.WorldInfo;
+import io.bluestaggo.voxelthing.world.block.Block;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Checks the terrain generated for a fixed seed and area against checksums-<type>.txt, one line
+// of "x y z checksum" per chunk, so that changes to the generator leave its output alone.
+// Decoration isn't included, since it depends on which neighbours are loaded.
+// When the output is meant to change, the new checksums are written to build/generation-checksums
+// to replace the resource with.
+public class GenerationChecksumTest {
+	private static final long SEED = 1234;
+	private static final int RADIUS = 3;
+	private static final int MIN_Y = -4;
+	private static final int MAX_Y = 8;
+
+	private static long checksum(Chunk chunk) {
+		long hash = 0xcbf29ce484222325L;
+		for (int x = 0; x < Chunk.LENGTH; x++) {
+			for (int y = 0; y < Chunk.LENGTH; y++) {
+				for (int z = 0; z < Chunk.LENGTH; z++) {
+					Block block = chunk.getBlock(x, y, z);
+					hash = (hash ^ (block == null ? 0 : block.id.fullName.hashCode())) * 0x100000001b3L;
+				}
+			}
+		}
+		return hash;
+	}
+
+	private static List<String> checksums(WorldType type) {
+		WorldInfo info = new WorldInfo();
+		info.seed = SEED;
+		World world = new World(null, info, type);
+		ChunkGenerator generator = new ChunkGenerator(world);
+
+		List<String> lines = new ArrayList<>();
+		for (int cx = -RADIUS; cx < RADIUS; cx++) {
+			for (int cz = -RADIUS; cz < RADIUS; cz++) {
+				for (int cy = MIN_Y; cy < MAX_Y; cy++) {
+					Chunk chunk = generator.generate(cx, cy, cz);
+					lines.add(cx + " " + cy + " " + cz + " " + Long.toHexString(checksum(chunk)));
+				}
+			}
+		}
+
+		world.close();
+		return lines;
+	}
+
+	private static List<String> expectedChecksums(WorldType type) throws IOException {
+		String name = "checksums-" + type + ".txt";
+		try (InputStream stream = GenerationChecksumTest.class.getResourceAsStream(name)) {
+			assertNotNull(stream, "Missing " + name);
+			return new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)).lines().toList();
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(WorldType.class)
+	public void generatedChunksMatch(WorldType type) throws IOException {
+		List<String> expected = expectedChecksums(type);
+		List<String> lines = checksums(type);
+
+		List<String> mismatches = new ArrayList<>();
+		for (int i = 0; i < Math.max(lines.size(), expected.size()); i++) {
+			String line = i < lines.size() ? lines.get(i) : "missing";
+			String expectedLine = i < expected.size() ? expected.get(i) : "missing";
+			if (!line.equals(expectedLine)) {
+				mismatches.add("expected " + expectedLine + ", got " + line);
+			}
+		}
+
+		if (!mismatches.isEmpty()) {
+			Path path = Path.of("build", "generation-checksums", "checksums-" + type + ".txt");
+			Files.createDirectories(path.getParent());
+			Files.write(path, lines);
+			fail(mismatches.size() + " of " + lines.size() + " chunks differ, new checksums written to " + path
+					+ "\n" + String.join("\n", mismatches));
+		}
+	}
+}
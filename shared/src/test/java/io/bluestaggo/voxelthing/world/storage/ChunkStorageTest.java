@@ -0,0 +1,80 @@
+package io.bluestaggo.voxelthing.world.storage;
+
+import io.bluestaggo.voxelthing.world.Chunk;
+import io.bluestaggo.voxelthing.world.World;
+import io.bluestaggo.voxelthing.world.WorldInfo;
+import io.bluestaggo.voxelthing.world.block.Block;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkStorageTest {
+	private static final int RADIUS = 2;
+	// Past the load radius, but close enough not to be unloaded for being out of range.
+	private static final int MARGIN_X = RADIUS + 2;
+
+	private World world;
+	private ChunkStorage storage;
+
+	@BeforeEach
+	public void setUp() {
+		world = new World(null, new WorldInfo());
+		storage = new ChunkStorage(world);
+		storage.setCenter(0, 0, 0, RADIUS);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		world.close();
+	}
+
+	private void putChunk(int x, int y, int z) {
+		Chunk chunk = new Chunk(world, x, y, z);
+		chunk.setBlock(0, 0, 0, Block.STONE);
+		chunk.dontSave();
+		storage.putChunk(chunk);
+	}
+
+	@Test
+	public void memoryPressureKeepsChunksInRadius() {
+		for (int x = -RADIUS; x <= RADIUS; x++) {
+			for (int z = -RADIUS; z <= RADIUS; z++) {
+				putChunk(x, 0, z);
+			}
+		}
+		putChunk(MARGIN_X, 0, 0);
+		putChunk(-MARGIN_X, 0, 0);
+
+		// Make the in-range chunks the least recently used ones.
+		storage.evict();
+		storage.getChunkAt(MARGIN_X, 0, 0);
+		storage.getChunkAt(-MARGIN_X, 0, 0);
+
+		storage.setMemoryBudget(0);
+		for (int i = 0; i < 100; i++) {
+			storage.evict();
+		}
+
+		for (int x = -RADIUS; x <= RADIUS; x++) {
+			for (int z = -RADIUS; z <= RADIUS; z++) {
+				assertNotNull(storage.getChunkAt(x, 0, z), x + " " + z);
+			}
+		}
+		assertNull(storage.getChunkAt(MARGIN_X, 0, 0));
+		assertNull(storage.getChunkAt(-MARGIN_X, 0, 0));
+	}
+
+	@Test
+	public void outOfRangeChunksAreUnloaded() {
+		putChunk(0, 0, 0);
+		putChunk(MARGIN_X, 0, 0);
+		putChunk(MARGIN_X + 1, 0, 0);
+		storage.evict();
+
+		assertNotNull(storage.getChunkAt(0, 0, 0));
+		assertNotNull(storage.getChunkAt(MARGIN_X, 0, 0));
+		assertNull(storage.getChunkAt(MARGIN_X + 1, 0, 0));
+	}
+}
@@ -0,0 +1,92 @@
+package io.bluestaggo.voxelthing.world.storage;
+
+import io.bluestaggo.pds.CompoundItem;
+import io.bluestaggo.voxelthing.world.BlockStorage;
+import io.bluestaggo.voxelthing.world.Chunk;
+import io.bluestaggo.voxelthing.world.block.Block;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedBlockStorageTest {
+	private static final byte TYPE = new PackedBlockStorage(1).getType();
+
+	@TempDir
+	Path folder;
+
+	private static List<Block> palette(int size) {
+		List<Block> palette = new ArrayList<>();
+		palette.add(null);
+		for (int i = 1; i < size; i++) {
+			palette.add(Block.WOOL[i % Block.WOOL.length]);
+		}
+		return palette;
+	}
+
+	private static ByteBuffer bytes(int length) {
+		return ByteBuffer.wrap(new byte[length]);
+	}
+
+	@Test
+	public void decodesEveryWidth() throws IOException {
+		for (int bits = 1; bits <= PackedBlockStorage.MAX_BITS; bits++) {
+			PackedBlockStorage storage = new PackedBlockStorage(palette(2), bits);
+			storage.setBlock(1, 2, 3, Block.WOOL[1]);
+			storage.setBlock(31, 31, 31, Block.WOOL[1]);
+
+			BlockStorage decoded = BlockStorage.decode(TYPE, palette(2), ByteBuffer.wrap(storage.getBytes()));
+			assertEquals(bits, ((PackedBlockStorage) decoded).getBits());
+			assertEquals(Block.WOOL[1], decoded.getBlock(1, 2, 3));
+			assertEquals(Block.WOOL[1], decoded.getBlock(31, 31, 31));
+			assertNull(decoded.getBlock(0, 0, 0));
+		}
+	}
+
+	@Test
+	public void rejectsEmptyData() {
+		assertThrows(IOException.class, () -> BlockStorage.decode(TYPE, palette(2), bytes(0)));
+	}
+
+	@Test
+	public void rejectsTruncatedData() {
+		assertThrows(IOException.class, () -> BlockStorage.decode(TYPE, palette(2), bytes(Chunk.VOLUME / 8 * 3 - 100)));
+	}
+
+	@Test
+	public void rejectsTooWideData() {
+		int bits = PackedBlockStorage.MAX_BITS + 1;
+		assertThrows(IOException.class, () -> BlockStorage.decode(TYPE, palette(2), bytes(Chunk.VOLUME / 8 * bits)));
+	}
+
+	@Test
+	public void rejectsPaletteWiderThanData() {
+		assertThrows(IOException.class, () -> BlockStorage.decode(TYPE, palette(5), bytes(Chunk.VOLUME / 8 * 2)));
+	}
+
+	@Test
+	public void rejectsUnknownType() {
+		assertThrows(IOException.class, () -> BlockStorage.decode((byte) 100, palette(2), bytes(Chunk.VOLUME)));
+		assertThrows(IOException.class, () -> BlockStorage.decode((byte) -1, palette(2), bytes(Chunk.VOLUME)));
+	}
+
+	// A corrupt chunk is read as missing instead of throwing out of the load.
+	@Test
+	public void corruptChunkLoadsAsMissing() throws IOException {
+		CompoundItem item = new Chunk(null, 0, 0, 0, new PackedBlockStorage(palette(2), 1)).serialize();
+		item.setByte("blockArrayType", TYPE);
+		item.setByteArray("blocks", Arrays.copyOf(item.getByteArray("blocks"), 7));
+
+		RegionSaveHandler handler = new RegionSaveHandler(folder);
+		handler.saveChunkData(0, 0, 0, item);
+		assertNull(handler.loadChunk(null, 0, 0, 0));
+		handler.close();
+	}
+}
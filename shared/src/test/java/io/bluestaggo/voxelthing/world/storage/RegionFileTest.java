@@ -0,0 +1,117 @@
+package io.bluestaggo.voxelthing.world.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegionFileTest {
+	@TempDir
+	Path folder;
+
+	private static byte[] data(int length, int seed) {
+		byte[] bytes = new byte[length];
+		new Random(seed).nextBytes(bytes);
+		return bytes;
+	}
+
+	@Test
+	public void roundTrip() throws IOException {
+		Path path = folder.resolve("0_0_0.vtr");
+		byte[] a = data(100, 1);
+		byte[] b = data(5000, 2);
+
+		try (RegionFile region = new RegionFile(path)) {
+			assertFalse(region.hasChunk(1, 2, 3));
+			assertNull(region.read(1, 2, 3));
+
+			region.write(1, 2, 3, a);
+			region.write(15, 15, 15, b);
+			assertArrayEquals(a, region.read(1, 2, 3));
+			assertArrayEquals(b, region.read(15, 15, 15));
+		}
+
+		try (RegionFile region = new RegionFile(path)) {
+			assertTrue(region.hasChunk(1, 2, 3));
+			assertTrue(region.hasChunk(15, 15, 15));
+			assertFalse(region.hasChunk(0, 0, 0));
+			assertArrayEquals(a, region.read(1, 2, 3));
+			assertArrayEquals(b, region.read(15, 15, 15));
+		}
+	}
+
+	@Test
+	public void overwriteLarger() throws IOException {
+		Path path = folder.resolve("0_0_0.vtr");
+		byte[] b = data(3000, 2);
+		byte[] larger = data(3 * RegionFile.SECTOR_SIZE + 10, 3);
+
+		try (RegionFile region = new RegionFile(path)) {
+			region.write(0, 0, 0, data(100, 1));
+			region.write(0, 0, 1, b);
+			// No longer fits in its sector, so it has to move past the next chunk.
+			region.write(0, 0, 0, larger);
+			assertArrayEquals(larger, region.read(0, 0, 0));
+			assertArrayEquals(b, region.read(0, 0, 1));
+		}
+
+		try (RegionFile region = new RegionFile(path)) {
+			assertArrayEquals(larger, region.read(0, 0, 0));
+			assertArrayEquals(b, region.read(0, 0, 1));
+		}
+	}
+
+	@Test
+	public void overwriteSmaller() throws IOException {
+		Path path = folder.resolve("0_0_0.vtr");
+		byte[] b = data(3000, 2);
+		byte[] smaller = data(10, 3);
+		byte[] c = data(2 * RegionFile.SECTOR_SIZE, 4);
+
+		try (RegionFile region = new RegionFile(path)) {
+			region.write(0, 0, 0, data(4 * RegionFile.SECTOR_SIZE, 1));
+			region.write(0, 0, 1, b);
+			long length = Files.size(path);
+
+			region.write(0, 0, 0, smaller);
+			assertArrayEquals(smaller, region.read(0, 0, 0));
+
+			// The sectors given up by the first chunk are reused rather than growing the file.
+			region.write(0, 0, 2, c);
+			assertEquals(length, Files.size(path));
+			assertArrayEquals(smaller, region.read(0, 0, 0));
+			assertArrayEquals(b, region.read(0, 0, 1));
+			assertArrayEquals(c, region.read(0, 0, 2));
+		}
+
+		try (RegionFile region = new RegionFile(path)) {
+			assertArrayEquals(smaller, region.read(0, 0, 0));
+			assertArrayEquals(b, region.read(0, 0, 1));
+			assertArrayEquals(c, region.read(0, 0, 2));
+
+			// Reopening rebuilds the used sectors from the header, so nothing is overwritten.
+			byte[] d = data(RegionFile.SECTOR_SIZE, 5);
+			region.write(0, 0, 3, d);
+			assertArrayEquals(smaller, region.read(0, 0, 0));
+			assertArrayEquals(b, region.read(0, 0, 1));
+			assertArrayEquals(c, region.read(0, 0, 2));
+			assertArrayEquals(d, region.read(0, 0, 3));
+		}
+	}
+
+	@Test
+	public void coordinatesWrapWithinRegion() throws IOException {
+		byte[] a = data(50, 1);
+
+		try (RegionFile region = new RegionFile(folder.resolve("-1_-1_-1.vtr"))) {
+			region.write(-1, -16, -5, a);
+			assertArrayEquals(a, region.read(-1, -16, -5));
+			assertFalse(region.hasChunk(-2, -16, -5));
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package io.bluestaggo.voxelthing.world.storage;
+
+import io.bluestaggo.pds.CompoundItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegionSaveHandlerTest {
+	@TempDir
+	Path folder;
+
+	private static CompoundItem chunkData(int x, int y, int z) {
+		CompoundItem item = new CompoundItem();
+		item.setInt("x", x);
+		item.setInt("y", y);
+		item.setInt("z", z);
+		item.setByteArray("blocks", new byte[1000 + (x & 7) * 1000]);
+		return item;
+	}
+
+	private static void assertChunkData(int x, int y, int z, CompoundItem item) {
+		assertNotNull(item, "no data for chunk " + x + ", " + y + ", " + z);
+		assertEquals(x, item.getInt("x"));
+		assertEquals(y, item.getInt("y"));
+		assertEquals(z, item.getInt("z"));
+		assertEquals(1000 + (x & 7) * 1000, item.getByteArray("blocks").length);
+	}
+
+	private static long countFiles(Path path) throws IOException {
+		try (Stream<Path> stream = Files.walk(path)) {
+			return stream.filter(Files::isRegularFile).count();
+		}
+	}
+
+	@Test
+	public void saveAndLoad() throws IOException {
+		RegionSaveHandler handler = new RegionSaveHandler(folder);
+		handler.saveChunkData(3, -2, 17, chunkData(3, -2, 17));
+		handler.saveChunkData(3, -2, 17, chunkData(3, -2, 17));
+		handler.saveChunkData(-20, 0, 5, chunkData(-20, 0, 5));
+		assertNull(handler.loadChunkData(0, 0, 0));
+		handler.close();
+
+		handler = new RegionSaveHandler(folder);
+		assertChunkData(3, -2, 17, handler.loadChunkData(3, -2, 17));
+		assertChunkData(-20, 0, 5, handler.loadChunkData(-20, 0, 5));
+		assertNull(handler.loadChunkData(4, -2, 17));
+		handler.close();
+	}
+
+	@Test
+	public void convertsFolderWorld() throws IOException {
+		FolderSaveHandler folderHandler = new FolderSaveHandler(folder);
+		int[][] chunks = {{0, 0, 0}, {1, 2, 3}, {-1, -1, -1}, {15, 0, 15}, {16, 0, 0}, {-17, 4, 40}};
+		for (int[] c : chunks) {
+			folderHandler.saveChunkData(c[0], c[1], c[2], chunkData(c[0], c[1], c[2]));
+		}
+		// Files that aren't chunks are left alone.
+		Path notChunk = folder.resolve("chunks").resolve("notes.dat");
+		Files.writeString(notChunk, "not a chunk");
+
+		RegionSaveHandler handler = new RegionSaveHandler(folder);
+		for (int[] c : chunks) {
+			assertChunkData(c[0], c[1], c[2], handler.loadChunkData(c[0], c[1], c[2]));
+		}
+		handler.close();
+
+		try (Stream<Path> stream = Files.list(folder.resolve("chunks"))) {
+			assertEquals(1, stream.count());
+		}
+		assertTrue(Files.exists(notChunk));
+		// 0_0_0, -1_-1_-1, 1_0_0 and -2_0_2.
+		assertEquals(4, countFiles(folder.resolve("regions")));
+
+		// Once converted, the chunks are read from the region files alone.
+		handler = new RegionSaveHandler(folder);
+		for (int[] c : chunks) {
+			assertChunkData(c[0], c[1], c[2], handler.loadChunkData(c[0], c[1], c[2]));
+		}
+		handler.close();
+	}
+
+	@Test
+	public void removesEmptyChunkFolder() throws IOException {
+		FolderSaveHandler folderHandler = new FolderSaveHandler(folder);
+		folderHandler.saveChunkData(5, 5, 5, chunkData(5, 5, 5));
+
+		RegionSaveHandler handler = new RegionSaveHandler(folder);
+		handler.saveChunkData(6, 5, 5, chunkData(6, 5, 5));
+		assertChunkData(5, 5, 5, handler.loadChunkData(5, 5, 5));
+		assertChunkData(6, 5, 5, handler.loadChunkData(6, 5, 5));
+		handler.close();
+
+		assertFalse(Files.exists(folder.resolve("chunks")));
+	}
+
+	// The point of region files: a cube of chunks takes one file instead of one per chunk.
+	@Test
+	public void usesOneFilePerRegion() throws IOException {
+		Path folderWorld = folder.resolve("folder");
+		Path regionWorld = folder.resolve("region");
+		FolderSaveHandler folderHandler = new FolderSaveHandler(folderWorld);
+		RegionSaveHandler regionHandler = new RegionSaveHandler(regionWorld);
+
+		for (int x = 0; x < 8; x++) {
+			for (int y = 0; y < 8; y++) {
+				for (int z = 0; z < 8; z++) {
+					folderHandler.saveChunkData(x, y, z, chunkData(x, y, z));
+					regionHandler.saveChunkData(x, y, z, chunkData(x, y, z));
+				}
+			}
+		}
+		regionHandler.close();
+
+		assertEquals(512, countFiles(folderWorld));
+		assertEquals(1, countFiles(regionWorld));
+	}
+}
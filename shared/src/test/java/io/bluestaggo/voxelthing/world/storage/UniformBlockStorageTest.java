@@ -0,0 +1,27 @@
+package io.bluestaggo.voxelthing.world.storage;
+
+import io.bluestaggo.voxelthing.world.Chunk;
+import io.bluestaggo.voxelthing.world.block.Block;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UniformBlockStorageTest {
+	@Test
+	public void takesOtherBlock() {
+		Chunk chunk = new Chunk(null, 0, 0, 0, new UniformBlockStorage(Block.STONE));
+		chunk.setBlock(1, 2, 3, Block.DIRT);
+
+		assertSame(Block.DIRT, chunk.getBlock(1, 2, 3));
+		assertSame(Block.STONE, chunk.getBlock(3, 2, 1));
+	}
+
+	@Test
+	public void takesAir() {
+		Chunk chunk = new Chunk(null, 0, 0, 0, new UniformBlockStorage(Block.STONE));
+		chunk.setBlock(1, 2, 3, null);
+
+		assertNull(chunk.getBlock(1, 2, 3));
+		assertSame(Block.STONE, chunk.getBlock(3, 2, 1));
+	}
+}